@@ -0,0 +1,133 @@
+package src.services;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Writes a product-shaped CSV file with millions of rows and reads it back
+ * with {@link CsvReader} and with readLine() + split(), parsing every field,
+ * so the two can be compared. Each pass must see the same totals.
+ *
+ * <pre>
+ * javac -cp "lib/*" -d out src/services/*.java src/models/*.java bench/src/services/CsvReaderBenchmark.java
+ * java -cp "out;lib/*" src.services.CsvReaderBenchmark [rows] [passes]
+ * </pre>
+ */
+public class CsvReaderBenchmark {
+    private static final String[] CATEGORIES = {"Electronics", "Office", "Furniture", "Grocery", "Tools"};
+
+    public static void main(String[] args) throws IOException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 3_000_000;
+        int passes = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        File file = File.createTempFile("csv-benchmark", ".csv");
+        file.deleteOnExit();
+        long start = System.nanoTime();
+        generate(file, rows);
+        System.out.printf("Wrote %,d rows (%,d bytes) in %d ms%n", rows, file.length(), millis(start));
+
+        for (int pass = 1; pass <= passes; pass++) {
+            start = System.nanoTime();
+            Totals mapped = readWithCsvReader(file.getPath());
+            long mappedMillis = millis(start);
+
+            start = System.nanoTime();
+            Totals split = readWithSplit(file.getPath());
+            long splitMillis = millis(start);
+
+            if (!mapped.equals(split)) {
+                throw new IllegalStateException("Readers disagree: " + mapped + " vs " + split);
+            }
+            System.out.printf("Pass %d: CsvReader %d ms, readLine() + split() %d ms (%s)%n",
+                pass, mappedMillis, splitMillis, mapped);
+        }
+    }
+
+    private static void generate(File file, int rows) throws IOException {
+        Random random = new Random(42);
+        try (CsvWriter writer = CsvWriter.replacing(file.getPath())) {
+            writer.writeLine("ID,Name,Description,Category,Price,Quantity,MinStock");
+            for (int id = 1; id <= rows; id++) {
+                writer.write(id)
+                    .write("Product " + id)
+                    .write("Generated product number " + id)
+                    .write(CATEGORIES[random.nextInt(CATEGORIES.length)])
+                    .write(random.nextInt(100000) / 100.0, 2)
+                    .write(random.nextInt(500))
+                    .write(random.nextInt(50))
+                    .endRecord();
+            }
+            writer.commit();
+        }
+    }
+
+    private static Totals readWithCsvReader(String path) throws IOException {
+        Totals totals = new Totals();
+        try (CsvReader reader = CsvReader.open(path)) {
+            reader.next(); // Skip header
+            while (reader.next()) {
+                totals.add(reader.getInt(0), reader.getString(1), reader.getString(2), reader.getString(3),
+                    reader.getDouble(4), reader.getInt(5), reader.getInt(6));
+            }
+        }
+        return totals;
+    }
+
+    private static Totals readWithSplit(String path) throws IOException {
+        Totals totals = new Totals();
+        try (BufferedReader reader = new BufferedReader(new FileReader(path))) {
+            reader.readLine(); // Skip header
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(",");
+                totals.add(Integer.parseInt(parts[0]), parts[1], parts[2], parts[3],
+                    Double.parseDouble(parts[4]), Integer.parseInt(parts[5]), Integer.parseInt(parts[6]));
+            }
+        }
+        return totals;
+    }
+
+    private static long millis(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    // Folds every parsed field in, so neither reader can skip work
+    private static final class Totals {
+        long rows;
+        long ids;
+        long textLength;
+        double value;
+        long stock;
+
+        void add(int id, String name, String description, String category, double price, int quantity, int minStock) {
+            rows++;
+            ids += id;
+            textLength += name.length() + description.length() + category.length();
+            value += price * quantity;
+            stock += quantity + minStock;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Totals)) {
+                return false;
+            }
+            Totals totals = (Totals) other;
+            return rows == totals.rows && ids == totals.ids && textLength == totals.textLength
+                && value == totals.value && stock == totals.stock;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(rows * 31 + ids);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%,d rows, stock value %.2f", rows, value);
+        }
+    }
+}
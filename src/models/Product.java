@@ -14,6 +14,13 @@ public class Product extends BaseModel {
         this.minStock = minStock;
     }
 
+    /**
+     * A copy of {@code other}, to edit and pass to ProductService.update().
+     */
+    public Product(Product other) {
+        this(other.getId(), other.getName(), other.getDescription(), other.category, other.price, other.quantity, other.minStock);
+    }
+
     public String getCategory() {
         return category;
     }
@@ -24,6 +24,21 @@ public class Task {
         this.createdAt = LocalDateTime.now();
     }
 
+    /**
+     * A copy of {@code other}, to edit and pass to TaskService.updateTask().
+     */
+    public Task(Task other) {
+        this.id = other.id;
+        this.title = other.title;
+        this.description = other.description;
+        this.assignedTo = other.assignedTo;
+        this.status = other.status;
+        this.priority = other.priority;
+        this.dueDate = other.dueDate;
+        this.createdBy = other.createdBy;
+        this.createdAt = other.createdAt;
+    }
+
     // Getters and setters
     public int getId() { return id; }
     public void setId(int id) { this.id = id; }
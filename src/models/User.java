@@ -32,6 +32,25 @@ public class User {
         this.isLocked = false;
     }
 
+    /**
+     * A copy of {@code other}, password hash included, to edit and pass to
+     * UserService.updateUser().
+     */
+    public User(User other) {
+        this.username = other.username;
+        this.password = other.password;
+        this.fullName = other.fullName;
+        this.email = other.email;
+        this.department = other.department;
+        this.position = other.position;
+        this.phoneNumber = other.phoneNumber;
+        this.isAdmin = other.isAdmin;
+        this.lastLogin = other.lastLogin;
+        this.loginAttempts = other.loginAttempts;
+        this.isLocked = other.isLocked;
+        this.lockExpiry = other.lockExpiry;
+    }
+
     private String hashPassword(String password) {
         try {
             MessageDigest md = MessageDigest.getInstance("SHA-256");
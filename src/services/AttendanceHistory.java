@@ -0,0 +1,101 @@
+package src.services;
+
+import src.models.Attendance;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Every employee's attendance as two {@link DayBitmap}s: the days marked and
+ * the days marked present. Rates, streaks and "present on all of these days"
+ * become popcounts and masks over a few words per employee instead of scans
+ * over their records.
+ */
+class AttendanceHistory {
+    private static final DayBitmap NO_DAYS = new DayBitmap();
+
+    // Sorted by username, so listings come back in that order
+    private final Map<String, Days> employees = new TreeMap<>();
+
+    private static final class Days {
+        final DayBitmap marked = new DayBitmap();
+        final DayBitmap present = new DayBitmap();
+    }
+
+    /**
+     * Records the attendance, replacing whatever was marked for the employee
+     * on that date.
+     */
+    void put(Attendance attendance) {
+        Days days = employees.computeIfAbsent(attendance.getEmployeeUsername(), k -> new Days());
+        days.marked.add(attendance.getDate());
+        if (attendance.isPresent()) {
+            days.present.add(attendance.getDate());
+        } else {
+            days.present.remove(attendance.getDate());
+        }
+    }
+
+    void remove(String employeeUsername, LocalDate date) {
+        Days days = employees.get(employeeUsername);
+        if (days != null) {
+            days.marked.remove(date);
+            days.present.remove(date);
+            if (days.marked.isEmpty()) {
+                employees.remove(employeeUsername);
+            }
+        }
+    }
+
+    EmployeeAttendance get(String employeeUsername) {
+        Days days = employees.get(employeeUsername);
+        return days != null ? summarize(employeeUsername, days) : new EmployeeAttendance(employeeUsername, 0, 0, 0, 0);
+    }
+
+    /**
+     * {marked, present} days for the employee from {@code from} to {@code to},
+     * both inclusive.
+     */
+    int[] count(String employeeUsername, LocalDate from, LocalDate to) {
+        Days days = employees.get(employeeUsername);
+        return days != null
+            ? new int[]{days.marked.count(from, to), days.present.count(from, to)}
+            : new int[2];
+    }
+
+    List<EmployeeAttendance> getAll() {
+        List<EmployeeAttendance> all = new ArrayList<>(employees.size());
+        for (Map.Entry<String, Days> entry : employees.entrySet()) {
+            all.add(summarize(entry.getKey(), entry.getValue()));
+        }
+        return all;
+    }
+
+    List<String> presentOnAll(Collection<LocalDate> dates) {
+        DayBitmap required = new DayBitmap();
+        for (LocalDate date : dates) {
+            required.add(date);
+        }
+        List<String> usernames = new ArrayList<>();
+        for (Map.Entry<String, Days> entry : employees.entrySet()) {
+            if (entry.getValue().present.containsAll(required)) {
+                usernames.add(entry.getKey());
+            }
+        }
+        return usernames;
+    }
+
+    private static EmployeeAttendance summarize(String employeeUsername, Days days) {
+        // Every marked day after the last presence was an absence, and the other way round
+        long lastPresent = days.present.lastDayNotIn(NO_DAYS);
+        long lastAbsent = days.marked.lastDayNotIn(days.present);
+        return new EmployeeAttendance(employeeUsername,
+            days.marked.count(),
+            days.present.count(),
+            days.marked.countAfter(lastPresent),
+            days.marked.countAfter(lastAbsent));
+    }
+}
@@ -0,0 +1,116 @@
+package src.services;
+
+import src.models.Attendance;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * In-memory attendance records indexed by (employee, date), by date and by
+ * employee. Dates are kept in order so listings come back chronologically.
+ */
+class AttendanceIndex {
+    private final Map<String, TreeMap<LocalDate, Attendance>> byEmployee = new HashMap<>();
+    private final TreeMap<LocalDate, Map<String, Attendance>> byDate = new TreeMap<>();
+    private int size;
+
+    Attendance get(String employeeUsername, LocalDate date) {
+        Map<String, Attendance> day = byDate.get(date);
+        return day != null ? day.get(employeeUsername) : null;
+    }
+
+    /**
+     * Stores the record, replacing any existing one for the same employee and
+     * date. Returns the replaced record, or null.
+     */
+    Attendance put(Attendance attendance) {
+        String employee = attendance.getEmployeeUsername();
+        LocalDate date = attendance.getDate();
+        byEmployee.computeIfAbsent(employee, k -> new TreeMap<>()).put(date, attendance);
+        Attendance previous = byDate.computeIfAbsent(date, k -> new LinkedHashMap<>()).put(employee, attendance);
+        if (previous == null) {
+            size++;
+        }
+        return previous;
+    }
+
+    Attendance remove(String employeeUsername, LocalDate date) {
+        Map<String, Attendance> day = byDate.get(date);
+        if (day == null) {
+            return null;
+        }
+        Attendance removed = day.remove(employeeUsername);
+        if (removed == null) {
+            return null;
+        }
+        if (day.isEmpty()) {
+            byDate.remove(date);
+        }
+        TreeMap<LocalDate, Attendance> history = byEmployee.get(employeeUsername);
+        history.remove(date);
+        if (history.isEmpty()) {
+            byEmployee.remove(employeeUsername);
+        }
+        size--;
+        return removed;
+    }
+
+    List<Attendance> getByDate(LocalDate date) {
+        Map<String, Attendance> day = byDate.get(date);
+        return day != null ? new ArrayList<>(day.values()) : new ArrayList<>();
+    }
+
+    /**
+     * Records dated between {@code from} and {@code to}, both inclusive.
+     */
+    List<Attendance> getBetween(LocalDate from, LocalDate to) {
+        List<Attendance> records = new ArrayList<>();
+        for (Map<String, Attendance> day : byDate.subMap(from, true, to, true).values()) {
+            records.addAll(day.values());
+        }
+        return records;
+    }
+
+    List<Attendance> getByEmployee(String employeeUsername) {
+        TreeMap<LocalDate, Attendance> history = byEmployee.get(employeeUsername);
+        return history != null ? new ArrayList<>(history.values()) : new ArrayList<>();
+    }
+
+    /**
+     * The employee's records dated between {@code from} and {@code to}, both inclusive.
+     */
+    List<Attendance> getByEmployee(String employeeUsername, LocalDate from, LocalDate to) {
+        TreeMap<LocalDate, Attendance> history = byEmployee.get(employeeUsername);
+        return history != null ? new ArrayList<>(history.subMap(from, true, to, true).values()) : new ArrayList<>();
+    }
+
+    /**
+     * The dates that have records, in order.
+     */
+    Set<LocalDate> getDates() {
+        return byDate.keySet();
+    }
+
+    List<Attendance> getAll() {
+        List<Attendance> records = new ArrayList<>(size);
+        for (Map<String, Attendance> day : byDate.values()) {
+            records.addAll(day.values());
+        }
+        return records;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        byEmployee.clear();
+        byDate.clear();
+        size = 0;
+    }
+}
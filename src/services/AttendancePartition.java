@@ -0,0 +1,210 @@
+package src.services;
+
+import src.models.Attendance;
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * One month of attendance, stored in its own file (e.g. data/attendance/2026-10.csv)
+ * and indexed in memory once it has been read.
+ *
+ * The partition remembers the size and modification time of its file as of
+ * the last read or write, so it is only parsed again if someone else changed it.
+ * Its daily counts live in an {@link AttendanceRollup}, which remembers the
+ * same stamp of the file it was counted from.
+ */
+class AttendancePartition {
+    static final String HEADER = "Employee,Date,Status,Notes";
+
+    private final YearMonth month;
+    private final String path;
+    private final AttendanceIndex index = new AttendanceIndex();
+    private final AttendanceRollup rollup;
+    private boolean loaded;
+    private int records;
+    private long modified = -1;
+    private long length = -1;
+    // The file's stamp when the rollup was last brought up to date
+    private long rolledUpModified = -1;
+    private long rolledUpLength = -1;
+
+    AttendancePartition(String directory, YearMonth month) {
+        this.month = month;
+        this.path = directory + File.separator + month + ".csv";
+        this.rollup = new AttendanceRollup(directory, month);
+    }
+
+    /**
+     * Creates a partition known from the catalog without reading its file yet.
+     */
+    AttendancePartition(String directory, YearMonth month, int records, long modified, long length,
+                        long rolledUpModified, long rolledUpLength) {
+        this(directory, month);
+        this.records = records;
+        this.modified = modified;
+        this.length = length;
+        this.rolledUpModified = rolledUpModified;
+        this.rolledUpLength = rolledUpLength;
+    }
+
+    YearMonth getMonth() {
+        return month;
+    }
+
+    /**
+     * The in-memory records. Call {@link #refresh()} first.
+     */
+    AttendanceIndex getIndex() {
+        return index;
+    }
+
+    int getRecordCount() {
+        return loaded ? index.size() : records;
+    }
+
+    long getModified() {
+        return modified;
+    }
+
+    long getLength() {
+        return length;
+    }
+
+    long getRolledUpModified() {
+        return rolledUpModified;
+    }
+
+    long getRolledUpLength() {
+        return rolledUpLength;
+    }
+
+    /**
+     * The daily counts. Only to be trusted while {@link #isRollupCurrent()}.
+     */
+    AttendanceRollup getRollup() {
+        return rollup;
+    }
+
+    /**
+     * Whether the rollup was counted from the file as it is on disk now.
+     * Costs a look at the file, not a read.
+     */
+    boolean isRollupCurrent() {
+        File file = new File(path);
+        if (!file.exists()) {
+            return rolledUpModified == -1 && rolledUpLength == -1;
+        }
+        return file.lastModified() == rolledUpModified && file.length() == rolledUpLength && rollup.exists();
+    }
+
+    /**
+     * Recounts every day of the month. Call {@link #refresh()} first.
+     */
+    void rebuildRollup(Function<String, String> departmentOf) {
+        rollup.clear();
+        for (LocalDate date : index.getDates()) {
+            rollup.recount(date, index.getByDate(date), departmentOf);
+        }
+        rollup.save();
+        rolledUpModified = modified;
+        rolledUpLength = length;
+    }
+
+    /**
+     * Saves the records changed on {@code dates} and recounts just those days,
+     * or the whole month if the rollup had already fallen behind the file.
+     */
+    void save(Collection<LocalDate> dates, Function<String, String> departmentOf) {
+        boolean rollupWasCurrent = rolledUpModified == modified && rolledUpLength == length && rollup.exists();
+        save();
+        if (!rollupWasCurrent) {
+            rebuildRollup(departmentOf);
+            return;
+        }
+        for (LocalDate date : dates) {
+            rollup.recount(date, index.getByDate(date), departmentOf);
+        }
+        rollup.save();
+        rolledUpModified = modified;
+        rolledUpLength = length;
+    }
+
+    /**
+     * Reads the file if it has not been read yet or has changed on disk since.
+     *
+     * @return true if records that were already in memory had to be replaced
+     */
+    boolean refresh() {
+        File file = new File(path);
+        long currentModified = file.exists() ? file.lastModified() : -1;
+        long currentLength = file.exists() ? file.length() : -1;
+        if (loaded && currentModified == modified && currentLength == length) {
+            return false;
+        }
+        boolean reloading = loaded;
+        index.clear();
+        if (file.exists()) {
+            read(path, index::put);
+        }
+        loaded = true;
+        modified = currentModified;
+        length = currentLength;
+        return reloading;
+    }
+
+    void save() {
+        // Written to a temporary file and moved over the old one, so a failed
+        // save leaves the previous file intact
+        try (CsvWriter writer = CsvWriter.replacing(path)) {
+            writer.writeLine(HEADER);
+            for (Attendance record : index.getAll()) {
+                writer.write(record.getEmployeeUsername())
+                    .write(record.getDate())
+                    .write(record.isPresent())
+                    .write(record.getNotes())
+                    .endRecord();
+            }
+            writer.commit();
+
+            // The index already holds what was just written; no need to parse it back
+            File file = new File(path);
+            modified = file.lastModified();
+            length = file.length();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Streams every well-formed record in an attendance file to {@code sink}.
+     */
+    static void read(String path, Consumer<Attendance> sink) {
+        try (CsvReader reader = CsvReader.open(path)) {
+            reader.next(); // Skip header
+            while (reader.next()) {
+                if (reader.fieldCount() >= 3) {
+                    try {
+                        sink.accept(new Attendance(
+                            reader.getString(0),
+                            reader.getDate(1),
+                            reader.getBoolean(2),
+                            reader.getString(3)
+                        ));
+                    } catch (Exception e) {
+                        System.err.println("Error parsing attendance line: " + reader.getLine() + " - " + e.getMessage());
+                    }
+                } else {
+                     System.err.println("Skipping malformed attendance line (less than 3 parts): " + reader.getLine());
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.err.println("IOException while reading attendance file: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package src.services;
+
+import src.models.Attendance;
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Present and absent counts per day and department for one month, stored next
+ * to the month's partition (e.g. data/attendance/2026-10.rollup.csv), so that
+ * statistics over a date range never have to read attendance records.
+ *
+ * A day is recounted from its records whenever they change, with employees
+ * counted under the department they belong to at that moment.
+ */
+class AttendanceRollup {
+    static final String HEADER = "Date,Department,Present,Absent";
+
+    private final String path;
+    // {present, absent} by department for each day that has records
+    private final TreeMap<LocalDate, Map<String, int[]>> days = new TreeMap<>();
+    private boolean loaded;
+
+    AttendanceRollup(String directory, YearMonth month) {
+        this.path = directory + File.separator + month + ".rollup.csv";
+    }
+
+    boolean exists() {
+        return new File(path).exists();
+    }
+
+    /**
+     * {present, absent} on the date, for one department or, if it is null, everyone.
+     */
+    int[] get(LocalDate date, String department) {
+        load();
+        int[] total = new int[2];
+        Map<String, int[]> counts = days.get(date);
+        if (counts == null) {
+            return total;
+        }
+        for (Map.Entry<String, int[]> entry : counts.entrySet()) {
+            if (department == null || department.equals(entry.getKey())) {
+                total[0] += entry.getValue()[0];
+                total[1] += entry.getValue()[1];
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Replaces the counts for the date with those of {@code records}.
+     */
+    void recount(LocalDate date, List<Attendance> records, Function<String, String> departmentOf) {
+        load();
+        if (records.isEmpty()) {
+            days.remove(date);
+            return;
+        }
+        Map<String, int[]> counts = new TreeMap<>();
+        for (Attendance record : records) {
+            int[] count = counts.computeIfAbsent(departmentOf.apply(record.getEmployeeUsername()), k -> new int[2]);
+            count[record.isPresent() ? 0 : 1]++;
+        }
+        days.put(date, counts);
+    }
+
+    void clear() {
+        days.clear();
+        loaded = true;
+    }
+
+    void save() {
+        try (CsvWriter writer = CsvWriter.replacing(path)) {
+            writer.writeLine(HEADER);
+            for (Map.Entry<LocalDate, Map<String, int[]>> day : days.entrySet()) {
+                for (Map.Entry<String, int[]> count : day.getValue().entrySet()) {
+                    writer.write(day.getKey())
+                        .write(count.getKey())
+                        .write(count.getValue()[0])
+                        .write(count.getValue()[1])
+                        .endRecord();
+                }
+            }
+            writer.commit();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        if (!exists()) {
+            return;
+        }
+        try (CsvReader reader = CsvReader.open(path)) {
+            reader.next(); // Skip header
+            while (reader.next()) {
+                try {
+                    days.computeIfAbsent(reader.getDate(0), k -> new TreeMap<>())
+                        .put(reader.getString(1), new int[]{reader.getInt(2), reader.getInt(3)});
+                } catch (Exception e) {
+                    System.err.println("Skipping malformed rollup line: " + reader.getLine() + " - " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
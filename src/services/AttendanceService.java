@@ -1,194 +1,390 @@
 package src.services;
 
 import src.models.Attendance;
+import src.models.User;
 import java.io.*;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.time.YearMonth;
 import java.util.ArrayList;
-import java.util.List;
-import java.util.stream.Collectors;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
 
+/**
+ * Attendance is stored in one file per month under data/attendance, plus a
+ * catalog (data/attendance/catalog.csv) listing each partition with its record
+ * count and file stamp as of the last write. Partitions are read on first use,
+ * so marking attendance only rewrites the current month and date-range
+ * queries only open the months they cover. Each month also keeps daily
+ * present/absent counts (see {@link AttendanceRollup}), kept up to date as
+ * attendance is marked, which answer the statistics queries without reading
+ * any records. Per-employee figures come from day bitmaps (see
+ * {@link AttendanceHistory}) built from the whole history on first use and
+ * then kept up to date the same way.
+ *
+ * Because even reads may load a partition, every public operation holds the
+ * service's monitor; the lists handed out are copies.
+ */
 public class AttendanceService {
-    private static final String ATTENDANCE_FILE = "data/attendance.csv";
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE;
+    private static final String ATTENDANCE_DIR = "data/attendance";
+    private static final String CATALOG_FILE = ATTENDANCE_DIR + "/catalog.csv";
+    private static final String CATALOG_HEADER = "Partition,Records,Size,Modified,RolledUpSize,RolledUpModified";
+    // Single-file store used before attendance was partitioned by month
+    private static final String LEGACY_FILE = "data/attendance.csv";
+    private static AttendanceService instance;
+    private final TreeMap<YearMonth, AttendancePartition> partitions = new TreeMap<>();
+    // Null until an employee figure is first asked for, and again after a file changed on disk
+    private AttendanceHistory history;
 
-    public AttendanceService() {
-        createAttendanceFileIfNotExists();
+    private AttendanceService() {
+        initializeStorage();
     }
 
-    private void createAttendanceFileIfNotExists() {
-        File file = new File(ATTENDANCE_FILE);
-        if (!file.exists()) {
-            try {
-                file.getParentFile().mkdirs();
-                try (PrintWriter writer = new PrintWriter(new FileWriter(file))) {
-                    writer.println("Employee,Date,Status,Notes");
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-        } else {
-            // Verify file format and fix if necessary
-            try {
-                List<String> lines = new ArrayList<>();
-                try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        lines.add(line);
-                    }
-                }
-                
-                // Check if file is empty or has incorrect format
-                if (lines.isEmpty() || !lines.get(0).equals("Employee,Date,Status,Notes")) {
-                    try (PrintWriter writer = new PrintWriter(new FileWriter(file))) {
-                        writer.println("Employee,Date,Status,Notes");
-                    }
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+    public static synchronized AttendanceService getInstance() {
+        if (instance == null) {
+            instance = new AttendanceService();
         }
+        return instance;
     }
 
-    public void markAttendance(Attendance attendance) {
-        List<Attendance> records = loadAttendance();
-        // Remove any existing record for this employee and date
-        records = records.stream()
-            .filter(record -> !(record.getEmployeeUsername().equals(attendance.getEmployeeUsername()) && 
-                              record.getDate().equals(attendance.getDate())))
-            .collect(Collectors.toList());
-        // Add the new attendance record
-        records.add(attendance);
-        saveAttendance(records);
+    private static void publish(Attendance previous, Attendance current) {
+        Attendance record = current != null ? current : previous;
+        EventBus.getInstance().publish(new DataChangeEvent<>(DataChangeEvent.EntityType.ATTENDANCE,
+            Arrays.asList(record.getEmployeeUsername(), record.getDate()), previous, current));
     }
 
-    public void unmarkAttendance(String employeeUsername, LocalDate date) {
-        List<Attendance> records = loadAttendance();
-        records = records.stream()
-            .filter(record -> !(record.getEmployeeUsername().equals(employeeUsername) && 
-                              record.getDate().equals(date)))
-            .collect(Collectors.toList());
-        saveAttendance(records);
+    private void initializeStorage() {
+        new File(ATTENDANCE_DIR).mkdirs();
+        if (new File(CATALOG_FILE).exists()) {
+            loadCatalog();
+        } else {
+            discoverPartitions();
+            migrateLegacyFile();
+            saveCatalog();
+        }
     }
 
-    public boolean hasMarkedAttendance(String employeeUsername, LocalDate date) {
-        return loadAttendance().stream()
-            .anyMatch(record -> record.getEmployeeUsername().equals(employeeUsername) && 
-                              record.getDate().equals(date));
+    private void loadCatalog() {
+        try (CsvReader reader = CsvReader.open(CATALOG_FILE)) {
+            reader.next(); // Skip header
+            while (reader.next()) {
+                try {
+                    YearMonth month = YearMonth.parse(reader.getString(0));
+                    // Catalogs written before rollups existed lack the last two columns
+                    boolean rolledUp = reader.fieldCount() >= 6;
+                    partitions.put(month, new AttendancePartition(ATTENDANCE_DIR, month,
+                        reader.getInt(1), reader.getLong(3), reader.getLong(2),
+                        rolledUp ? reader.getLong(5) : -1, rolledUp ? reader.getLong(4) : -1));
+                } catch (Exception e) {
+                    System.err.println("Skipping malformed catalog line: " + reader.getLine() + " - " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
     }
 
-    public List<Attendance> getAttendanceByEmployee(String employeeUsername) {
-        return loadAttendance().stream()
-            .filter(record -> record.getEmployeeUsername().equals(employeeUsername))
-            .collect(Collectors.toList());
+    // Rebuilds the partition list from the files on disk when there is no catalog
+    private void discoverPartitions() {
+        File[] files = new File(ATTENDANCE_DIR).listFiles((dir, name) -> name.matches("\\d{4}-\\d{2}\\.csv"));
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            YearMonth month = YearMonth.parse(file.getName().substring(0, 7));
+            partitions.put(month, new AttendancePartition(ATTENDANCE_DIR, month));
+        }
     }
 
-    public List<Attendance> getAttendanceByDate(LocalDate date) {
-        return loadAttendance().stream()
-            .filter(record -> record.getDate().equals(date))
-            .collect(Collectors.toList());
+    // Splits the old single attendance file into monthly partitions
+    private void migrateLegacyFile() {
+        File legacy = new File(LEGACY_FILE);
+        if (!legacy.exists()) {
+            return;
+        }
+        List<AttendancePartition> touched = new ArrayList<>();
+        AttendancePartition.read(LEGACY_FILE, record -> {
+            AttendancePartition partition = partition(YearMonth.from(record.getDate()), true);
+            if (!touched.contains(partition)) {
+                touched.add(partition);
+            }
+            partition.getIndex().put(record);
+        });
+        for (AttendancePartition partition : touched) {
+            partition.save();
+        }
+        if (legacy.renameTo(new File(LEGACY_FILE + ".migrated"))) {
+            System.out.println("Migrated " + LEGACY_FILE + " into " + touched.size() + " monthly partitions");
+        }
     }
 
-    private List<Attendance> loadAttendance() {
-        List<Attendance> records = new ArrayList<>();
-        File file = new File(ATTENDANCE_FILE);
-        if (!file.exists()) {
-             System.out.println("Attendance file not found: " + ATTENDANCE_FILE);
-             return records; // return empty list if file doesn't exist
-        }
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            boolean isFirstLine = true;
-            System.out.println("Reading attendance file: " + ATTENDANCE_FILE);
-            while ((line = reader.readLine()) != null) {
-                System.out.println("Read line: " + line);
-                if (isFirstLine) {
-                    isFirstLine = false;
-                    continue;
-                }
-                String[] parts = line.split(",", -1);
-                System.out.println("Split parts: " + Arrays.toString(parts));
-                if (parts.length >= 3) {
-                    try {
-                        LocalDate date = LocalDate.parse(parts[1], DATE_FORMATTER);
-                        boolean isPresent = Boolean.parseBoolean(parts[2]);
-                        String notes = parts.length > 3 ? parts[3] : "";
-                        records.add(new Attendance(
-                            parts[0],
-                            date,
-                            isPresent,
-                            notes
-                        ));
-                        System.out.println("Added attendance record: " + parts[0] + ", " + date + ", " + isPresent + ", Notes: " + notes);
-                    } catch (Exception e) {
-                        System.err.println("Error parsing attendance line: " + line + " - " + e.getMessage());
-                    }
-                } else {
-                     System.err.println("Skipping malformed attendance line (less than 3 parts): " + line);
-                }
+    private void saveCatalog() {
+        try (CsvWriter writer = CsvWriter.replacing(CATALOG_FILE)) {
+            writer.writeLine(CATALOG_HEADER);
+            for (AttendancePartition partition : partitions.values()) {
+                writer.write(partition.getMonth().toString())
+                    .write(partition.getRecordCount())
+                    .write(partition.getLength())
+                    .write(partition.getModified())
+                    .write(partition.getRolledUpLength())
+                    .write(partition.getRolledUpModified())
+                    .endRecord();
             }
+            writer.commit();
         } catch (IOException e) {
             e.printStackTrace();
-            System.err.println("IOException while reading attendance file: " + e.getMessage());
         }
-        System.out.println("Finished loading attendance. Total records loaded: " + records.size());
-        return records;
     }
 
-    private void saveAttendance(List<Attendance> records) {
-        try {
-            // Create backup of existing file
-            File file = new File(ATTENDANCE_FILE);
-            if (file.exists()) {
-                File backup = new File(ATTENDANCE_FILE + ".bak");
-                if (backup.exists()) {
-                    backup.delete();
-                }
-                file.renameTo(backup);
+    /**
+     * Returns the month's partition with its records loaded, or null if nothing
+     * was ever recorded for that month and {@code create} is false.
+     */
+    private AttendancePartition partition(YearMonth month, boolean create) {
+        AttendancePartition partition = partitions.get(month);
+        if (partition == null) {
+            if (!create) {
+                return null;
             }
+            partition = new AttendancePartition(ATTENDANCE_DIR, month);
+            partitions.put(month, partition);
+        }
+        refresh(partition);
+        return partition;
+    }
 
-            // Write new records
-            try (PrintWriter writer = new PrintWriter(new FileWriter(ATTENDANCE_FILE))) {
-                writer.println("Employee,Date,Status,Notes");
-                for (Attendance record : records) {
-                    writer.println(String.format("%s,%s,%s,%s",
-                        record.getEmployeeUsername(),
-                        record.getDate().format(DATE_FORMATTER),
-                        record.isPresent() ? "true" : "false",
-                        record.getNotes() != null ? record.getNotes() : ""));
-                }
+    private void refresh(AttendancePartition partition) {
+        if (partition.refresh()) {
+            // Someone else changed the file since we last read it
+            history = null;
+            EventBus.getInstance().publish(DataChangeEvent.reload(DataChangeEvent.EntityType.ATTENDANCE));
+        }
+    }
+
+    // The rollup is written before the catalog, so a crash in between leaves it looking stale
+    private void savePartition(AttendancePartition partition, LocalDate date) {
+        partition.save(Collections.singleton(date), departments());
+        saveCatalog();
+    }
+
+    // Looks up the department rollups count an employee under
+    private Function<String, String> departments() {
+        UserService userService = UserService.getInstance();
+        return username -> {
+            User user = userService.getUserByUsername(username);
+            return user != null && user.getDepartment() != null ? user.getDepartment() : "";
+        };
+    }
+
+    public synchronized void markAttendance(Attendance attendance) {
+        AttendancePartition partition = partition(YearMonth.from(attendance.getDate()), true);
+        // Replaces any existing record for this employee and date
+        Attendance previous = partition.getIndex().put(attendance);
+        if (history != null) {
+            history.put(attendance);
+        }
+        savePartition(partition, attendance.getDate());
+        publish(previous, attendance);
+    }
+
+    /**
+     * Marks many records in one pass: each affected month is written once,
+     * however many records there are.
+     */
+    public synchronized void markAttendanceBatch(List<Attendance> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        // The dates changed in each month; a month is loaded when first seen
+        Map<YearMonth, Set<LocalDate>> touched = new LinkedHashMap<>();
+        List<Attendance> previous = new ArrayList<>(records.size());
+        for (Attendance attendance : records) {
+            YearMonth month = YearMonth.from(attendance.getDate());
+            touched.computeIfAbsent(month, m -> {
+                partition(m, true);
+                return new TreeSet<>();
+            }).add(attendance.getDate());
+            previous.add(partitions.get(month).getIndex().put(attendance));
+            if (history != null) {
+                history.put(attendance);
             }
+        }
+        Function<String, String> departments = departments();
+        for (Map.Entry<YearMonth, Set<LocalDate>> entry : touched.entrySet()) {
+            partitions.get(entry.getKey()).save(entry.getValue(), departments);
+        }
+        saveCatalog();
+        for (int i = 0; i < records.size(); i++) {
+            publish(previous.get(i), records.get(i));
+        }
+    }
 
-            // Delete backup if successful
-            File backup = new File(ATTENDANCE_FILE + ".bak");
-            if (backup.exists()) {
-                backup.delete();
+    public synchronized void unmarkAttendance(String employeeUsername, LocalDate date) {
+        AttendancePartition partition = partition(YearMonth.from(date), false);
+        Attendance removed = partition != null ? partition.getIndex().remove(employeeUsername, date) : null;
+        if (removed != null) {
+            if (history != null) {
+                history.remove(employeeUsername, date);
             }
-        } catch (IOException e) {
-            e.printStackTrace();
-            // Restore from backup if save failed
-            File backup = new File(ATTENDANCE_FILE + ".bak");
-            if (backup.exists()) {
-                backup.renameTo(new File(ATTENDANCE_FILE));
+            savePartition(partition, date);
+            publish(removed, null);
+        }
+    }
+
+    public synchronized boolean hasMarkedAttendance(String employeeUsername, LocalDate date) {
+        AttendancePartition partition = partition(YearMonth.from(date), false);
+        return partition != null && partition.getIndex().get(employeeUsername, date) != null;
+    }
+
+    public synchronized List<Attendance> getAttendanceByEmployee(String employeeUsername) {
+        List<Attendance> records = new ArrayList<>();
+        for (AttendancePartition partition : partitions.values()) {
+            refresh(partition);
+            records.addAll(partition.getIndex().getByEmployee(employeeUsername));
+        }
+        return records;
+    }
+
+    /**
+     * The employee's records dated between {@code from} and {@code to}, both
+     * inclusive, oldest first. Only the partitions for those months are read.
+     */
+    public synchronized List<Attendance> getAttendanceByEmployee(String employeeUsername, LocalDate from, LocalDate to) {
+        List<Attendance> records = new ArrayList<>();
+        for (AttendancePartition partition : partitions.subMap(YearMonth.from(from), true, YearMonth.from(to), true).values()) {
+            refresh(partition);
+            records.addAll(partition.getIndex().getByEmployee(employeeUsername, from, to));
+        }
+        return records;
+    }
+
+    public synchronized List<Attendance> getAttendanceByDate(LocalDate date) {
+        AttendancePartition partition = partition(YearMonth.from(date), false);
+        return partition != null ? partition.getIndex().getByDate(date) : new ArrayList<>();
+    }
+
+    /**
+     * Records dated between {@code from} and {@code to}, both inclusive. Only the
+     * partitions for the months in that range are read.
+     */
+    public synchronized List<Attendance> getAttendanceBetween(LocalDate from, LocalDate to) {
+        List<Attendance> records = new ArrayList<>();
+        for (AttendancePartition partition : partitions.subMap(YearMonth.from(from), true, YearMonth.from(to), true).values()) {
+            refresh(partition);
+            records.addAll(partition.getIndex().getBetween(from, to));
+        }
+        return records;
+    }
+
+    /**
+     * Present and absent counts for every day from {@code from} to {@code to},
+     * both inclusive, oldest first. They come from the daily rollups; records
+     * are only read for a month whose file changed since it was last counted.
+     */
+    public synchronized List<DailyAttendance> getDailyAttendance(LocalDate from, LocalDate to) {
+        return getDailyAttendance(from, to, null);
+    }
+
+    /**
+     * Like {@link #getDailyAttendance(LocalDate, LocalDate)}, counting only
+     * employees of {@code department}. Each day counts employees under the
+     * department they were in when that day's attendance last changed.
+     */
+    public synchronized List<DailyAttendance> getDailyAttendance(LocalDate from, LocalDate to, String department) {
+        List<DailyAttendance> days = new ArrayList<>();
+        YearMonth month = null;
+        AttendanceRollup rollup = null;
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            if (!YearMonth.from(date).equals(month)) {
+                month = YearMonth.from(date);
+                rollup = rollup(month);
             }
+            int[] counts = rollup != null ? rollup.get(date, department) : new int[2];
+            days.add(new DailyAttendance(date, counts[0], counts[1]));
+        }
+        return days;
+    }
+
+    // The month's rollup, recounted first if it is out of date; null if nothing was recorded that month
+    private AttendanceRollup rollup(YearMonth month) {
+        AttendancePartition partition = partitions.get(month);
+        if (partition == null) {
+            return null;
+        }
+        if (!partition.isRollupCurrent()) {
+            refresh(partition);
+            partition.rebuildRollup(departments());
+            saveCatalog();
         }
+        return partition.getRollup();
+    }
+
+    public synchronized List<Attendance> getAllAttendance() {
+        List<Attendance> records = new ArrayList<>();
+        for (AttendancePartition partition : partitions.values()) {
+            refresh(partition);
+            records.addAll(partition.getIndex().getAll());
+        }
+        return records;
     }
 
-    public List<Attendance> getAllAttendance() {
-        return new ArrayList<>(loadAttendance());
+    /**
+     * Percentage of the employee's marked days they were present, or 0 if none
+     * were marked.
+     */
+    public synchronized double getAttendanceRate(String employeeUsername) {
+        return history().get(employeeUsername).getRate();
     }
 
-    public double getAttendanceRate(String employeeUsername) {
-        List<Attendance> employeeRecords = getAttendanceByEmployee(employeeUsername);
-        if (employeeRecords.isEmpty()) {
-            return 0.0;
+    /**
+     * Like {@link #getAttendanceRate(String)}, over the days from {@code from}
+     * to {@code to}, both inclusive.
+     */
+    public synchronized double getAttendanceRate(String employeeUsername, LocalDate from, LocalDate to) {
+        int[] days = history().count(employeeUsername, from, to);
+        return days[0] == 0 ? 0.0 : (double) days[1] / days[0] * 100;
+    }
+
+    public synchronized EmployeeAttendance getEmployeeAttendance(String employeeUsername) {
+        return history().get(employeeUsername);
+    }
+
+    /**
+     * Figures for every employee with attendance on record, by username.
+     */
+    public synchronized List<EmployeeAttendance> getEmployeeAttendance() {
+        return history().getAll();
+    }
+
+    /**
+     * Usernames of the employees marked present on every one of {@code dates}.
+     */
+    public synchronized List<String> getEmployeesPresentOnAll(Collection<LocalDate> dates) {
+        return history().presentOnAll(dates);
+    }
+
+    // Reads every partition the first time and is then kept up to date by the writes above, so
+    // answering a query touches no file. Outside edits are noticed when a partition is next read,
+    // e.g. for the roster, or its rollup turns out stale, and refresh() then drops the history.
+    private AttendanceHistory history() {
+        if (history == null) {
+            for (AttendancePartition partition : partitions.values()) {
+                refresh(partition);
+            }
+            history = new AttendanceHistory();
+            for (AttendancePartition partition : partitions.values()) {
+                for (Attendance record : partition.getIndex().getAll()) {
+                    history.put(record);
+                }
+            }
         }
-        
-        long presentDays = employeeRecords.stream()
-            .filter(Attendance::isPresent)
-            .count();
-            
-        return (double) presentDays / employeeRecords.size() * 100;
+        return history;
     }
 } 
\ No newline at end of file
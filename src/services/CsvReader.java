@@ -0,0 +1,427 @@
+package src.services;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * Reads CSV files through a {@link FileChannel}, a window at a time into one
+ * reused buffer. The file is not memory-mapped: on Windows a mapped file cannot
+ * be replaced until the mapping is garbage collected, which would make the
+ * next save of a file just read fail.
+ *
+ * Each call to {@link #next()} scans one record in place and only remembers
+ * where its fields start and end. Nothing is allocated until a field is asked
+ * for, and numbers, booleans and ISO dates are parsed straight from the
+ * buffered bytes. Quoted fields may contain commas, line breaks and doubled
+ * quotes.
+ *
+ * <pre>
+ * try (CsvReader reader = CsvReader.open(path)) {
+ *     reader.next(); // header
+ *     while (reader.next()) {
+ *         int id = reader.getInt(0);
+ *         String name = reader.getString(1);
+ *     }
+ * }
+ * </pre>
+ */
+class CsvReader implements Closeable {
+    // Files larger than this are read a window at a time
+    private static final long WINDOW_SIZE = 1024 * 1024;
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private ByteBuffer buffer;
+    private long windowStart;
+    private int windowLimit;
+    private int position;
+
+    private int recordStart;
+    private int recordEnd;
+    private int fieldCount;
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private boolean[] escaped = new boolean[16];
+    private byte[] scratch = new byte[256];
+
+    private CsvReader(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.fileSize = channel.size();
+        read(0);
+    }
+
+    static CsvReader open(String path) throws IOException {
+        return new CsvReader(FileChannel.open(Paths.get(path), StandardOpenOption.READ));
+    }
+
+    /**
+     * Advances to the next record. Blank lines are skipped.
+     *
+     * @return false once the end of the file is reached
+     */
+    boolean next() throws IOException {
+        while (true) {
+            if (windowStart + position >= fileSize) {
+                fieldCount = 0;
+                return false;
+            }
+            if (!scanRecord()) {
+                // The record runs past the window; read again starting at it
+                long size = Math.max(WINDOW_SIZE, (long) (windowLimit - position) * 2);
+                read(windowStart + position, size);
+                continue;
+            }
+            if (recordEnd > recordStart) {
+                return true;
+            }
+        }
+    }
+
+    int fieldCount() {
+        return fieldCount;
+    }
+
+    boolean isEmpty(int field) {
+        return field >= fieldCount || starts[field] == ends[field];
+    }
+
+    String getString(int field) {
+        if (field >= fieldCount) {
+            return "";
+        }
+        int start = starts[field];
+        int length = ends[field] - start;
+        byte[] bytes = scratch(length);
+        int size = 0;
+        for (int i = start; i < start + length; i++) {
+            byte b = buffer.get(i);
+            bytes[size++] = b;
+            if (b == '"' && escaped[field]) {
+                i++; // Collapse a doubled quote
+            }
+        }
+        return new String(bytes, 0, size, StandardCharsets.UTF_8);
+    }
+
+    int getInt(int field) {
+        long value = getLong(field);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Value out of int range: " + getString(field));
+        }
+        return (int) value;
+    }
+
+    long getLong(int field) {
+        int i = trimStart(field);
+        int end = trimEnd(field);
+        boolean negative = false;
+        if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+            negative = buffer.get(i) == '-';
+            i++;
+        }
+        if (i >= end || end - i > 18) {
+            return Long.parseLong(getString(field).trim());
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("For input string: \"" + getString(field) + "\"");
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses plain decimals such as "-12.50" directly. Anything else (exponents,
+     * NaN, very long mantissas) falls back to {@link Double#parseDouble}.
+     */
+    double getDouble(int field) {
+        int i = trimStart(field);
+        int end = trimEnd(field);
+        boolean negative = false;
+        if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+            negative = buffer.get(i) == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean seenPoint = false;
+        for (; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b == '.' && !seenPoint) {
+                seenPoint = true;
+            } else if (b >= '0' && b <= '9') {
+                mantissa = mantissa * 10 + (b - '0');
+                digits++;
+                if (seenPoint) {
+                    fractionDigits++;
+                }
+            } else {
+                digits = -1;
+                break;
+            }
+        }
+        // Exact when the mantissa fits in 53 bits: one correctly rounded division
+        if (digits <= 0 || digits > 15 || fractionDigits >= POWERS_OF_TEN.length) {
+            return Double.parseDouble(getString(field).trim());
+        }
+        double value = mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    /**
+     * Same rule as {@link Boolean#parseBoolean}: true only for "true" in any case.
+     */
+    boolean getBoolean(int field) {
+        int start = trimStart(field);
+        if (trimEnd(field) - start != 4) {
+            return false;
+        }
+        return (buffer.get(start) | 0x20) == 't'
+            && (buffer.get(start + 1) | 0x20) == 'r'
+            && (buffer.get(start + 2) | 0x20) == 'u'
+            && (buffer.get(start + 3) | 0x20) == 'e';
+    }
+
+    /**
+     * Parses an ISO yyyy-MM-dd date from the field bytes.
+     */
+    LocalDate getDate(int field) {
+        int start = trimStart(field);
+        LocalDate date = trimEnd(field) - start == 10 ? getDateAt(start) : null;
+        return date != null ? date : LocalDate.parse(getString(field).trim());
+    }
+
+    /**
+     * Parses an ISO yyyy-MM-ddTHH:mm[:ss[.fraction]] timestamp from the field
+     * bytes, falling back to {@link LocalDateTime#parse} for anything unusual.
+     */
+    LocalDateTime getDateTime(int field) {
+        int start = trimStart(field);
+        int length = trimEnd(field) - start;
+        if (length >= 16 && buffer.get(start + 10) == 'T' && buffer.get(start + 13) == ':') {
+            LocalDate date = getDateAt(start);
+            int hour = digits(start + 11, 2);
+            int minute = digits(start + 14, 2);
+            int second = 0;
+            int nanos = 0;
+            boolean valid = date != null && hour >= 0 && minute >= 0;
+            if (valid && length > 16) {
+                valid = length >= 19 && buffer.get(start + 16) == ':';
+                second = valid ? digits(start + 17, 2) : -1;
+                valid = valid && second >= 0;
+                if (valid && length > 19) {
+                    int fraction = length - 20;
+                    valid = buffer.get(start + 19) == '.' && fraction >= 1 && fraction <= 9;
+                    nanos = valid ? digits(start + 20, fraction) : -1;
+                    valid = valid && nanos >= 0;
+                    for (int i = fraction; valid && i < 9; i++) {
+                        nanos *= 10;
+                    }
+                }
+            }
+            if (valid) {
+                return date.atTime(hour, minute, second, nanos);
+            }
+        }
+        return LocalDateTime.parse(getString(field).trim());
+    }
+
+    /**
+     * The raw text of the current record, for error messages.
+     */
+    String getLine() {
+        int length = recordEnd - recordStart;
+        byte[] bytes = scratch(length);
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(recordStart + i);
+        }
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void read(long offset) throws IOException {
+        read(offset, WINDOW_SIZE);
+    }
+
+    private void read(long offset, long size) throws IOException {
+        long length = Math.min(size, fileSize - offset);
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("CSV record too large to read");
+        }
+        // The buffer only grows, for a record longer than a window
+        if (buffer == null || buffer.capacity() < length) {
+            buffer = ByteBuffer.allocate((int) length);
+        }
+        buffer.clear().limit((int) length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("CSV file shrank while being read");
+            }
+        }
+        windowStart = offset;
+        windowLimit = (int) length;
+        position = 0;
+    }
+
+    // Records field boundaries for the record at the current position. Returns
+    // false if the record is cut off by the end of a window that is not the end
+    // of the file.
+    private boolean scanRecord() {
+        boolean lastWindow = windowStart + windowLimit >= fileSize;
+        int p = position;
+        recordStart = p;
+        fieldCount = 0;
+        while (true) {
+            int start = p;
+            int end;
+            boolean quoted = false;
+            if (p < windowLimit && buffer.get(p) == '"') {
+                start = ++p;
+                while (true) {
+                    if (p >= windowLimit) {
+                        if (!lastWindow) {
+                            return false;
+                        }
+                        break; // Unterminated quote; take the rest of the file
+                    }
+                    if (buffer.get(p) == '"') {
+                        if (p + 1 < windowLimit && buffer.get(p + 1) == '"') {
+                            quoted = true;
+                            p += 2;
+                            continue;
+                        }
+                        if (p + 1 >= windowLimit && !lastWindow) {
+                            return false;
+                        }
+                        break;
+                    }
+                    p++;
+                }
+                end = p;
+                if (p < windowLimit) {
+                    p++; // Closing quote
+                }
+                // Ignore anything between the closing quote and the delimiter
+                while (p < windowLimit && !isDelimiter(buffer.get(p))) {
+                    p++;
+                }
+            } else {
+                while (p < windowLimit && !isDelimiter(buffer.get(p))) {
+                    p++;
+                }
+                end = p;
+            }
+            if (p >= windowLimit && !lastWindow) {
+                return false;
+            }
+            addField(start, end, quoted);
+            if (p < windowLimit && buffer.get(p) == ',') {
+                p++;
+                continue;
+            }
+            recordEnd = p;
+            if (p < windowLimit && buffer.get(p) == '\r') {
+                p++;
+            }
+            if (p < windowLimit && buffer.get(p) == '\n') {
+                p++;
+            } else if (p >= windowLimit && !lastWindow) {
+                return false;
+            }
+            position = p;
+            if (recordEnd == recordStart) {
+                fieldCount = 0;
+            }
+            return true;
+        }
+    }
+
+    private static boolean isDelimiter(byte b) {
+        return b == ',' || b == '\n' || b == '\r';
+    }
+
+    private void addField(int start, int end, boolean quoted) {
+        if (fieldCount == starts.length) {
+            int capacity = fieldCount * 2;
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            escaped = Arrays.copyOf(escaped, capacity);
+        }
+        starts[fieldCount] = start;
+        ends[fieldCount] = end;
+        escaped[fieldCount] = quoted;
+        fieldCount++;
+    }
+
+    private int trimStart(int field) {
+        if (field >= fieldCount) {
+            throw new NumberFormatException("Missing field " + field);
+        }
+        int i = starts[field];
+        while (i < ends[field] && buffer.get(i) == ' ') {
+            i++;
+        }
+        return i;
+    }
+
+    private int trimEnd(int field) {
+        int i = ends[field];
+        while (i > starts[field] && buffer.get(i - 1) == ' ') {
+            i--;
+        }
+        return i;
+    }
+
+    private LocalDate getDateAt(int start) {
+        if (buffer.get(start + 4) != '-' || buffer.get(start + 7) != '-') {
+            return null;
+        }
+        int year = digits(start, 4);
+        int month = digits(start + 5, 2);
+        int day = digits(start + 8, 2);
+        if (year < 0 || month < 0 || day < 0) {
+            return null;
+        }
+        return LocalDate.of(year, month, day);
+    }
+
+    // Parses a fixed run of ASCII digits, or returns -1 if any byte is not a digit
+    private int digits(int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private byte[] scratch(int length) {
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        return scratch;
+    }
+}
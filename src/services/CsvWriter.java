@@ -0,0 +1,361 @@
+package src.services;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Writes CSV records by encoding values straight into a pooled byte buffer,
+ * which is drained to a {@link FileChannel} whenever it fills up.
+ *
+ * A writer opened with {@link #replacing(String)} writes to a temporary file
+ * that only replaces the target when {@link #commit()} is called, so readers
+ * never see a half-written file. A writer opened with {@link #appending(String)}
+ * adds records to the end of an existing file, such as a journal.
+ *
+ * String fields are quoted when they contain a comma, quote or line break, in
+ * the form {@link CsvReader} understands.
+ */
+class CsvWriter implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_POOLED_BUFFERS = 4;
+    private static final Queue<ByteBuffer> BUFFER_POOL = new ConcurrentLinkedQueue<>();
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes();
+    private static final long[] POWERS_OF_TEN = {
+        1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L, 1000000000L
+    };
+
+    private final FileChannel channel;
+    private final Path target;
+    private final Path temp;
+    private ByteBuffer buffer;
+    private boolean firstField = true;
+    private boolean committed;
+
+    private CsvWriter(FileChannel channel, Path target, Path temp) {
+        this.channel = channel;
+        this.target = target;
+        this.temp = temp;
+        ByteBuffer pooled = BUFFER_POOL.poll();
+        this.buffer = pooled != null ? pooled : ByteBuffer.allocateDirect(BUFFER_SIZE);
+    }
+
+    /**
+     * Opens a writer whose output replaces {@code path} atomically on {@link #commit()}.
+     */
+    static CsvWriter replacing(String path) throws IOException {
+        Path target = Paths.get(path);
+        Path temp = Paths.get(path + ".tmp");
+        FileChannel channel = FileChannel.open(temp,
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        return new CsvWriter(channel, target, temp);
+    }
+
+    /**
+     * Opens a writer that appends to {@code path}, creating it if needed.
+     */
+    static CsvWriter appending(String path) throws IOException {
+        FileChannel channel = FileChannel.open(Paths.get(path),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        return new CsvWriter(channel, null, null);
+    }
+
+    /**
+     * Writes a line as-is, e.g. a header. The text is not escaped.
+     */
+    CsvWriter writeLine(String line) throws IOException {
+        for (int i = 0; i < line.length(); i++) {
+            putChar(line, i);
+            if (Character.isHighSurrogate(line.charAt(i))) {
+                i++;
+            }
+        }
+        return endRecord();
+    }
+
+    CsvWriter write(String value) throws IOException {
+        separator();
+        if (value == null) {
+            return this;
+        }
+        boolean quote = needsQuotes(value);
+        if (quote) {
+            put((byte) '"');
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' && quote) {
+                put((byte) '"');
+            }
+            putChar(value, i);
+            if (Character.isHighSurrogate(c)) {
+                i++;
+            }
+        }
+        if (quote) {
+            put((byte) '"');
+        }
+        return this;
+    }
+
+    CsvWriter write(int value) throws IOException {
+        return write((long) value);
+    }
+
+    CsvWriter write(long value) throws IOException {
+        separator();
+        putLong(value);
+        return this;
+    }
+
+    /**
+     * Writes {@code value} with a fixed number of decimals, exactly as
+     * {@code String.format("%.2f", value)} does for {@code decimals == 2}:
+     * the shortest decimal form of the value rounded half-up, with a minus
+     * sign kept on negatives that round to zero.
+     */
+    CsvWriter write(double value, int decimals) throws IOException {
+        separator();
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            putAscii(Double.toString(value));
+            return this;
+        }
+        if (Double.doubleToRawLongBits(value) < 0) {
+            put((byte) '-');
+        }
+        double scaled = Math.abs(value) * POWERS_OF_TEN[decimals];
+        double fraction = scaled - Math.floor(scaled);
+        if (scaled >= 1e9 || Math.abs(fraction - 0.5) < 1e-6) {
+            // Too large or too close to a tie for the scaled double to decide
+            putAscii(BigDecimal.valueOf(Math.abs(value))
+                .setScale(decimals, RoundingMode.HALF_UP).toPlainString());
+            return this;
+        }
+        long units = Math.round(scaled);
+        putLong(units / POWERS_OF_TEN[decimals]);
+        if (decimals > 0) {
+            put((byte) '.');
+            putPadded(units % POWERS_OF_TEN[decimals], decimals);
+        }
+        return this;
+    }
+
+    CsvWriter write(boolean value) throws IOException {
+        separator();
+        putAscii(value ? "true" : "false");
+        return this;
+    }
+
+    /**
+     * Writes an ISO yyyy-MM-dd date, or an empty field for null.
+     */
+    CsvWriter write(LocalDate value) throws IOException {
+        separator();
+        if (value != null) {
+            putDate(value);
+        }
+        return this;
+    }
+
+    /**
+     * Writes an ISO yyyy-MM-ddTHH:mm:ss[.fraction] timestamp, or an empty field
+     * for null. Matches {@code DateTimeFormatter.ISO_LOCAL_DATE_TIME}.
+     */
+    CsvWriter write(LocalDateTime value) throws IOException {
+        separator();
+        if (value == null) {
+            return this;
+        }
+        putDate(value.toLocalDate());
+        put((byte) 'T');
+        putPadded(value.getHour(), 2);
+        put((byte) ':');
+        putPadded(value.getMinute(), 2);
+        put((byte) ':');
+        putPadded(value.getSecond(), 2);
+        int nanos = value.getNano();
+        if (nanos != 0) {
+            int digits = 9;
+            while (nanos % 10 == 0) {
+                nanos /= 10;
+                digits--;
+            }
+            put((byte) '.');
+            putPadded(nanos, digits);
+        }
+        return this;
+    }
+
+    CsvWriter endRecord() throws IOException {
+        for (byte b : LINE_SEPARATOR) {
+            put(b);
+        }
+        firstField = true;
+        return this;
+    }
+
+    /**
+     * Hands everything written so far to the file.
+     */
+    void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Flushes, syncs and moves the temporary file over the target.
+     */
+    void commit() throws IOException {
+        if (temp == null) {
+            throw new IllegalStateException("Only replacing writers can be committed");
+        }
+        flush();
+        channel.force(false);
+        channel.close();
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        committed = true;
+    }
+
+    /**
+     * Releases the buffer. An appending writer is flushed first; an uncommitted
+     * replacing writer discards its temporary file and leaves the target alone.
+     */
+    @Override
+    public void close() throws IOException {
+        if (buffer == null) {
+            return;
+        }
+        try {
+            if (temp == null) {
+                flush();
+            }
+            channel.close();
+            if (temp != null && !committed) {
+                Files.deleteIfExists(temp);
+            }
+        } finally {
+            buffer.clear();
+            if (BUFFER_POOL.size() < MAX_POOLED_BUFFERS) {
+                BUFFER_POOL.offer(buffer);
+            }
+            buffer = null;
+        }
+    }
+
+    private void separator() throws IOException {
+        if (firstField) {
+            firstField = false;
+        } else {
+            put((byte) ',');
+        }
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void put(byte b) throws IOException {
+        if (!buffer.hasRemaining()) {
+            flush();
+        }
+        buffer.put(b);
+    }
+
+    private void putAscii(String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            put((byte) value.charAt(i));
+        }
+    }
+
+    // Encodes the character at index as UTF-8, consuming a surrogate pair whole
+    private void putChar(String value, int index) throws IOException {
+        char c = value.charAt(index);
+        if (c < 0x80) {
+            put((byte) c);
+        } else if (c < 0x800) {
+            put((byte) (0xC0 | (c >> 6)));
+            put((byte) (0x80 | (c & 0x3F)));
+        } else if (Character.isHighSurrogate(c) && index + 1 < value.length()
+                && Character.isLowSurrogate(value.charAt(index + 1))) {
+            int codePoint = Character.toCodePoint(c, value.charAt(index + 1));
+            put((byte) (0xF0 | (codePoint >> 18)));
+            put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+            put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+            put((byte) (0x80 | (codePoint & 0x3F)));
+        } else if (Character.isSurrogate(c)) {
+            put((byte) '?');
+        } else {
+            put((byte) (0xE0 | (c >> 12)));
+            put((byte) (0x80 | ((c >> 6) & 0x3F)));
+            put((byte) (0x80 | (c & 0x3F)));
+        }
+    }
+
+    private void putLong(long value) throws IOException {
+        if (value < 0) {
+            if (value == Long.MIN_VALUE) {
+                putAscii(Long.toString(value));
+                return;
+            }
+            put((byte) '-');
+            value = -value;
+        }
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        putPadded(value, digits);
+    }
+
+    // Writes the lowest `digits` decimal digits of a non-negative value, zero-padded
+    private void putPadded(long value, int digits) throws IOException {
+        if (buffer.remaining() < digits) {
+            flush();
+        }
+        int end = buffer.position() + digits;
+        for (int i = end - 1; i >= end - digits; i--) {
+            buffer.put(i, (byte) ('0' + value % 10));
+            value /= 10;
+        }
+        buffer.position(end);
+    }
+
+    private void putDate(LocalDate date) throws IOException {
+        int year = date.getYear();
+        if (year < 0 || year > 9999) {
+            putAscii(date.toString());
+            return;
+        }
+        putPadded(year, 4);
+        put((byte) '-');
+        putPadded(date.getMonthValue(), 2);
+        put((byte) '-');
+        putPadded(date.getDayOfMonth(), 2);
+    }
+}
@@ -0,0 +1,44 @@
+package src.services;
+
+import java.time.LocalDate;
+
+/**
+ * How many employees were marked present and absent on one day.
+ */
+public class DailyAttendance {
+    private final LocalDate date;
+    private final int present;
+    private final int absent;
+
+    DailyAttendance(LocalDate date, int present, int absent) {
+        this.date = date;
+        this.present = present;
+        this.absent = absent;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public int getPresent() {
+        return present;
+    }
+
+    public int getAbsent() {
+        return absent;
+    }
+
+    /**
+     * Number of employees whose attendance was marked.
+     */
+    public int getTotal() {
+        return present + absent;
+    }
+
+    /**
+     * Percentage of marked employees who were present, or 0 if nobody was marked.
+     */
+    public double getRate() {
+        return getTotal() == 0 ? 0 : (double) present / getTotal() * 100;
+    }
+}
@@ -0,0 +1,124 @@
+package src.services;
+
+import src.models.Attendance;
+import src.models.Product;
+import src.models.Task;
+import src.models.User;
+
+/**
+ * One entity that was added, changed or removed, as delivered by the
+ * {@link EventBus}. The old value is null for an addition and the new value is
+ * null for a removal. Services replace an entity rather than edit it, so the
+ * old value of an update is the entity as it was before the change.
+ *
+ * A reload event has no id or values and stands for any number of changes to
+ * its entity type, e.g. after a file was read again because it changed on
+ * disk. Listeners should then reload everything of that type.
+ *
+ * @param <T> the model class of the entity type, e.g. {@link Product}
+ */
+public class DataChangeEvent<T> {
+    public enum EntityType {
+        PRODUCT(Product.class), TASK(Task.class), ATTENDANCE(Attendance.class), USER(User.class);
+
+        private final Class<?> valueType;
+
+        EntityType(Class<?> valueType) {
+            this.valueType = valueType;
+        }
+
+        public Class<?> getValueType() {
+            return valueType;
+        }
+    }
+
+    private final EntityType entityType;
+    private final Object id;
+    private final T oldValue;
+    private final T newValue;
+
+    DataChangeEvent(EntityType entityType, Object id, T oldValue, T newValue) {
+        if (!isValue(entityType, oldValue) || !isValue(entityType, newValue)) {
+            throw new IllegalArgumentException("Not a " + entityType + " value: " + (newValue != null ? newValue : oldValue));
+        }
+        this.entityType = entityType;
+        this.id = id;
+        this.oldValue = oldValue;
+        this.newValue = newValue;
+    }
+
+    static DataChangeEvent<?> reload(EntityType entityType) {
+        return new DataChangeEvent<>(entityType, null, null, null);
+    }
+
+    private static boolean isValue(EntityType entityType, Object value) {
+        return value == null || entityType.valueType.isInstance(value);
+    }
+
+    /**
+     * This event with its values typed, e.g. {@code event.as(Product.class)}
+     * for a product change.
+     *
+     * @throws IllegalArgumentException if {@code type} is not the model class
+     *         of the event's entity type
+     */
+    public <V> DataChangeEvent<V> as(Class<V> type) {
+        if (type != entityType.valueType) {
+            throw new IllegalArgumentException(entityType + " values are not " + type.getSimpleName());
+        }
+        // The constructor only admits values of the entity type's class
+        @SuppressWarnings("unchecked")
+        DataChangeEvent<V> typed = (DataChangeEvent<V>) this;
+        return typed;
+    }
+
+    /**
+     * One event for this change followed by {@code next}, a later change to
+     * the same entity: from this old value to the next new one.
+     */
+    DataChangeEvent<T> followedBy(DataChangeEvent<?> next) {
+        return new DataChangeEvent<>(entityType, id, oldValue, next.as(valueClass()).newValue);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Class<T> valueClass() {
+        // T is the entity type's class for every event the constructor lets through
+        return (Class<T>) entityType.valueType;
+    }
+
+    public EntityType getEntityType() {
+        return entityType;
+    }
+
+    /**
+     * The id of a product or task, the username of a user, or for attendance
+     * a list of the employee's username and the date.
+     */
+    public Object getId() {
+        return id;
+    }
+
+    public T getOldValue() {
+        return oldValue;
+    }
+
+    public T getNewValue() {
+        return newValue;
+    }
+
+    /**
+     * The new value, or the old one if the entity was removed.
+     */
+    public T getValue() {
+        return newValue != null ? newValue : oldValue;
+    }
+
+    public boolean isReload() {
+        return id == null;
+    }
+
+    @Override
+    public String toString() {
+        return entityType + (isReload() ? " reload" : " " + id);
+    }
+}
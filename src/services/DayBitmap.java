@@ -0,0 +1,123 @@
+package src.services;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * A set of days stored as one bit per day. Only the 64-day words between the
+ * first and last day ever added are allocated, so an employee's history costs
+ * about a bit per day they were employed, and counting the days in a range is
+ * one popcount per word.
+ */
+class DayBitmap {
+    private long[] words = new long[0];
+    // Position of words[0], counted in 64-day words since 1970-01-01
+    private long firstWord;
+
+    void add(LocalDate date) {
+        long day = date.toEpochDay();
+        long word = Math.floorDiv(day, 64);
+        ensureCapacity(word);
+        words[(int) (word - firstWord)] |= 1L << Math.floorMod(day, 64);
+    }
+
+    void remove(LocalDate date) {
+        long day = date.toEpochDay();
+        int index = (int) (Math.floorDiv(day, 64) - firstWord);
+        if (index >= 0 && index < words.length) {
+            words[index] &= ~(1L << Math.floorMod(day, 64));
+        }
+    }
+
+    boolean isEmpty() {
+        for (long word : words) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    int count() {
+        int total = 0;
+        for (long word : words) {
+            total += Long.bitCount(word);
+        }
+        return total;
+    }
+
+    /**
+     * Number of days from {@code from} to {@code to}, both inclusive.
+     */
+    int count(LocalDate from, LocalDate to) {
+        return count(from.toEpochDay(), to.toEpochDay());
+    }
+
+    /**
+     * Number of days after the given epoch day; all of them if it is
+     * {@link Long#MIN_VALUE}.
+     */
+    int countAfter(long day) {
+        return day == Long.MIN_VALUE ? count() : count(day + 1, (firstWord + words.length) * 64 - 1);
+    }
+
+    // Days from first to last, both inclusive, as epoch days
+    private int count(long first, long last) {
+        long firstIndex = Math.floorDiv(first, 64);
+        long lastIndex = Math.floorDiv(last, 64);
+        int total = 0;
+        for (long index = Math.max(firstIndex, firstWord); index <= Math.min(lastIndex, firstWord + words.length - 1); index++) {
+            long bits = words[(int) (index - firstWord)];
+            if (index == firstIndex) {
+                bits &= -1L << Math.floorMod(first, 64);
+            }
+            if (index == lastIndex) {
+                bits &= -1L >>> (63 - Math.floorMod(last, 64));
+            }
+            total += Long.bitCount(bits);
+        }
+        return total;
+    }
+
+    /**
+     * The last day in this set that is not in {@code excluded}, as an epoch
+     * day, or {@link Long#MIN_VALUE} if there is none.
+     */
+    long lastDayNotIn(DayBitmap excluded) {
+        for (int i = words.length - 1; i >= 0; i--) {
+            long bits = words[i] & ~excluded.word(firstWord + i);
+            if (bits != 0) {
+                return (firstWord + i) * 64 + 63 - Long.numberOfLeadingZeros(bits);
+            }
+        }
+        return Long.MIN_VALUE;
+    }
+
+    boolean containsAll(DayBitmap days) {
+        for (int i = 0; i < days.words.length; i++) {
+            if ((days.words[i] & ~word(days.firstWord + i)) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long word(long index) {
+        long i = index - firstWord;
+        return i >= 0 && i < words.length ? words[(int) i] : 0;
+    }
+
+    private void ensureCapacity(long word) {
+        if (words.length == 0) {
+            words = new long[1];
+            firstWord = word;
+        } else if (word < firstWord) {
+            long[] grown = new long[(int) (firstWord - word) + words.length];
+            System.arraycopy(words, 0, grown, (int) (firstWord - word), words.length);
+            words = grown;
+            firstWord = word;
+        } else if (word >= firstWord + words.length) {
+            words = Arrays.copyOf(words, (int) (word - firstWord) + 1);
+        }
+    }
+}
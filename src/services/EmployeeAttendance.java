@@ -0,0 +1,60 @@
+package src.services;
+
+/**
+ * One employee's attendance over a period: how many days were marked, how
+ * many of them present, and the runs of absences or presences their most
+ * recent marked days form. Days nobody marked, such as weekends, neither
+ * count nor break a run.
+ */
+public class EmployeeAttendance {
+    private final String employeeUsername;
+    private final int daysMarked;
+    private final int daysPresent;
+    private final int consecutiveAbsences;
+    private final int presentStreak;
+
+    EmployeeAttendance(String employeeUsername, int daysMarked, int daysPresent, int consecutiveAbsences, int presentStreak) {
+        this.employeeUsername = employeeUsername;
+        this.daysMarked = daysMarked;
+        this.daysPresent = daysPresent;
+        this.consecutiveAbsences = consecutiveAbsences;
+        this.presentStreak = presentStreak;
+    }
+
+    public String getEmployeeUsername() {
+        return employeeUsername;
+    }
+
+    public int getDaysMarked() {
+        return daysMarked;
+    }
+
+    public int getDaysPresent() {
+        return daysPresent;
+    }
+
+    public int getDaysAbsent() {
+        return daysMarked - daysPresent;
+    }
+
+    /**
+     * Percentage of marked days the employee was present, or 0 if no day was marked.
+     */
+    public double getRate() {
+        return daysMarked == 0 ? 0 : (double) daysPresent / daysMarked * 100;
+    }
+
+    /**
+     * Number of the employee's latest marked days that were all absences.
+     */
+    public int getConsecutiveAbsences() {
+        return consecutiveAbsences;
+    }
+
+    /**
+     * Number of the employee's latest marked days that were all present.
+     */
+    public int getPresentStreak() {
+        return presentStreak;
+    }
+}
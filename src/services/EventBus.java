@@ -0,0 +1,125 @@
+package src.services;
+
+import src.services.DataChangeEvent.EntityType;
+import javax.swing.SwingUtilities;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Tells the rest of the application what data changed. Services publish a
+ * {@link DataChangeEvent} after every write, on whatever thread made it, and
+ * subscribers receive the events later on the event dispatch thread, so a
+ * listener can update Swing components directly.
+ *
+ * Events wait until the next delivery and are coalesced in the meantime:
+ * several changes to one entity arrive as a single event from its first old
+ * value to its last new value, an entity added and removed again is dropped,
+ * and a reload of an entity type replaces everything pending for that type.
+ * A burst of writes therefore costs each listener one call.
+ */
+public class EventBus {
+    /**
+     * Receives the changes to the entity types it subscribed to, one call per
+     * delivery, on the event dispatch thread.
+     */
+    public interface Listener {
+        void dataChanged(List<DataChangeEvent<?>> events);
+    }
+
+    private static EventBus instance;
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    // Events not delivered yet, by entity id (null for a reload); guarded by this
+    private final Map<EntityType, Map<Object, DataChangeEvent<?>>> pending = new EnumMap<>(EntityType.class);
+    private boolean deliveryScheduled;
+
+    private EventBus() {
+    }
+
+    public static synchronized EventBus getInstance() {
+        if (instance == null) {
+            instance = new EventBus();
+        }
+        return instance;
+    }
+
+    public void subscribe(Listener listener, EntityType... entityTypes) {
+        subscriptions.add(new Subscription(listener, EnumSet.copyOf(Arrays.asList(entityTypes))));
+    }
+
+    public void unsubscribe(Listener listener) {
+        subscriptions.removeIf(subscription -> subscription.listener == listener);
+    }
+
+    void publish(DataChangeEvent<?> event) {
+        synchronized (this) {
+            Map<Object, DataChangeEvent<?>> events = pending.computeIfAbsent(event.getEntityType(), t -> new LinkedHashMap<>());
+            if (event.isReload()) {
+                events.clear();
+                events.put(null, event);
+            } else if (!events.containsKey(null)) {
+                coalesce(events, event);
+            }
+            if (deliveryScheduled) {
+                return;
+            }
+            deliveryScheduled = true;
+        }
+        SwingUtilities.invokeLater(this::deliver);
+    }
+
+    private static void coalesce(Map<Object, DataChangeEvent<?>> events, DataChangeEvent<?> event) {
+        DataChangeEvent<?> previous = events.get(event.getId());
+        if (previous == null) {
+            events.put(event.getId(), event);
+        } else if (previous.getOldValue() == null && event.getNewValue() == null) {
+            events.remove(event.getId());
+        } else {
+            events.put(event.getId(), previous.followedBy(event));
+        }
+    }
+
+    private void deliver() {
+        Map<EntityType, Map<Object, DataChangeEvent<?>>> batch;
+        synchronized (this) {
+            batch = new EnumMap<>(pending);
+            pending.clear();
+            deliveryScheduled = false;
+        }
+        for (Subscription subscription : subscriptions) {
+            List<DataChangeEvent<?>> events = new ArrayList<>();
+            for (EntityType entityType : subscription.entityTypes) {
+                Map<Object, DataChangeEvent<?>> changes = batch.get(entityType);
+                if (changes != null) {
+                    events.addAll(changes.values());
+                }
+            }
+            if (events.isEmpty()) {
+                continue;
+            }
+            try {
+                subscription.listener.dataChanged(Collections.unmodifiableList(events));
+            } catch (RuntimeException e) {
+                // One broken listener must not keep the others from hearing about the change
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private static final class Subscription {
+        final Listener listener;
+        final Set<EntityType> entityTypes;
+
+        Subscription(Listener listener, Set<EntityType> entityTypes) {
+            this.listener = listener;
+            this.entityTypes = entityTypes;
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package src.services;
+
+import src.models.Product;
+import java.io.*;
+import java.nio.file.*;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Append-only persistence for the product catalog.
+ *
+ * The catalog lives in a snapshot file plus a journal of mutations made since
+ * that snapshot was written. Every add/update/delete appends a single record to
+ * the journal, so a write costs the same no matter how large the catalog is.
+ * Once enough records pile up the journal is rotated and a background thread
+ * folds it into a fresh snapshot.
+ *
+ * Replay treats ADD and UPDATE as upserts and DELETE as idempotent, so a
+ * journal that was already folded into the snapshot (e.g. the application
+ * stopped mid-compaction) can be replayed again safely.
+ */
+class ProductJournal {
+    static final String HEADER = "ID,Name,Description,Category,Price,Quantity,MinStock";
+    private static final String OP_ADD = "ADD";
+    private static final String OP_UPDATE = "UPDATE";
+    private static final String OP_DELETE = "DELETE";
+    private static final int COMPACTION_THRESHOLD = 1000;
+
+    private final String snapshotFile;
+    private final String journalFile;
+    private final String compactingFile;
+    private final ExecutorService compactor;
+    private Future<?> pendingCompaction;
+    private CsvWriter writer;
+    private int records;
+
+    ProductJournal(String snapshotFile) {
+        this.snapshotFile = snapshotFile;
+        this.journalFile = snapshotFile.replaceAll("\\.csv$", "") + ".journal";
+        this.compactingFile = journalFile + ".compacting";
+        this.compactor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "product-journal-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Rebuilds the catalog from the snapshot, then replays any journal left by
+     * an unfinished compaction and finally the live journal.
+     */
+    void load(Map<Integer, Product> products) {
+        products.clear();
+        readSnapshot(products);
+        records = replay(compactingFile, products) + replay(journalFile, products);
+    }
+
+    void appendAdd(Product product) {
+        append(OP_ADD, product);
+    }
+
+    void appendUpdate(Product product) {
+        append(OP_UPDATE, product);
+    }
+
+    void appendDelete(int id) {
+        try {
+            CsvWriter out = journalWriter();
+            out.write(OP_DELETE).write(id).endRecord();
+            out.flush();
+            records++;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    boolean needsCompaction() {
+        return records >= COMPACTION_THRESHOLD
+            && (pendingCompaction == null || pendingCompaction.isDone());
+    }
+
+    /**
+     * Rotates the journal and folds it into a new snapshot on the compactor
+     * thread. The caller passes a copy, so the compactor never touches live state.
+     */
+    void compactAsync(List<Product> snapshot) {
+        if (!rotate()) {
+            return;
+        }
+        pendingCompaction = compactor.submit(() -> writeSnapshot(snapshot));
+    }
+
+    /**
+     * Writes a full snapshot synchronously and empties the journal.
+     */
+    void compactNow(List<Product> snapshot) {
+        awaitPendingCompaction();
+        if (rotate()) {
+            writeSnapshot(snapshot);
+        }
+    }
+
+    private void awaitPendingCompaction() {
+        if (pendingCompaction == null) {
+            return;
+        }
+        try {
+            pendingCompaction.get();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void append(String op, Product product) {
+        try {
+            CsvWriter out = journalWriter();
+            out.write(op);
+            writeFields(out, product);
+            out.endRecord();
+            out.flush();
+            records++;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private CsvWriter journalWriter() throws IOException {
+        if (writer == null) {
+            writer = CsvWriter.appending(journalFile);
+        }
+        return writer;
+    }
+
+    // Moves the live journal aside so new appends start a fresh file while the
+    // compactor folds the old one into the snapshot.
+    private boolean rotate() {
+        try {
+            if (writer != null) {
+                writer.close();
+                writer = null;
+            }
+            Path journal = Paths.get(journalFile);
+            Path compacting = Paths.get(compactingFile);
+            if (Files.exists(journal)) {
+                if (Files.exists(compacting)) {
+                    // Leftover from an interrupted compaction; keep both in replay order.
+                    try (Writer out = Files.newBufferedWriter(compacting, StandardOpenOption.APPEND)) {
+                        for (String line : Files.readAllLines(journal)) {
+                            out.write(line);
+                            out.write(System.lineSeparator());
+                        }
+                    }
+                    Files.delete(journal);
+                } else {
+                    Files.move(journal, compacting);
+                }
+            }
+            records = 0;
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    private void writeSnapshot(List<Product> snapshot) {
+        try {
+            try (CsvWriter out = CsvWriter.replacing(snapshotFile)) {
+                out.writeLine(HEADER);
+                for (Product product : snapshot) {
+                    writeFields(out, product);
+                    out.endRecord();
+                }
+                out.commit();
+            }
+            Files.deleteIfExists(Paths.get(compactingFile));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void readSnapshot(Map<Integer, Product> products) {
+        if (!new File(snapshotFile).exists()) {
+            return;
+        }
+        try (CsvReader reader = CsvReader.open(snapshotFile)) {
+            reader.next(); // Skip header
+            while (reader.next()) {
+                if (reader.fieldCount() >= 7) {
+                    Product product = fromRecord(reader, 0);
+                    products.put(product.getId(), product);
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private int replay(String path, Map<Integer, Product> products) {
+        if (!new File(path).exists()) {
+            return 0;
+        }
+        int replayed = 0;
+        try (CsvReader reader = CsvReader.open(path)) {
+            while (reader.next()) {
+                String op = reader.getString(0);
+                try {
+                    if (op.equals(OP_DELETE) && reader.fieldCount() >= 2) {
+                        products.remove(reader.getInt(1));
+                    } else if ((op.equals(OP_ADD) || op.equals(OP_UPDATE)) && reader.fieldCount() >= 8) {
+                        Product product = fromRecord(reader, 1);
+                        products.put(product.getId(), product);
+                    } else {
+                        System.err.println("Skipping malformed journal record: " + reader.getLine());
+                        continue;
+                    }
+                    replayed++;
+                } catch (NumberFormatException e) {
+                    // Most likely a record torn by a crash mid-append
+                    System.err.println("Skipping malformed journal record: " + reader.getLine());
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return replayed;
+    }
+
+    private static void writeFields(CsvWriter out, Product product) throws IOException {
+        out.write(product.getId())
+            .write(product.getName())
+            .write(product.getDescription())
+            .write(product.getCategory())
+            .write(product.getPrice(), 2)
+            .write(product.getQuantity())
+            .write(product.getMinStock());
+    }
+
+    private static Product fromRecord(CsvReader reader, int offset) {
+        return new Product(
+            reader.getInt(offset),
+            reader.getString(offset + 1),
+            reader.getString(offset + 2),
+            reader.getString(offset + 3),
+            reader.getDouble(offset + 4),
+            reader.getInt(offset + 5),
+            reader.getInt(offset + 6)
+        );
+    }
+}
@@ -0,0 +1,277 @@
+package src.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+/**
+ * Trigram inverted index over product names and descriptions.
+ *
+ * Every three-character window of the lower-cased text maps to a sorted list
+ * of product ids. A query term of three or more characters is answered by
+ * intersecting the lists of its trigrams, starting with the shortest, and then
+ * checking the candidates with {@code contains}. Candidates are produced in id
+ * order and the search stops once it has enough results, so a broad query costs
+ * about as much as a narrow one. Terms shorter than three characters carry no
+ * trigram and fall back to checking products in turn.
+ */
+class ProductSearchIndex {
+    // Lower-cased {name, description} per product id
+    private final TreeMap<Integer, String[]> documents = new TreeMap<>();
+    private final Map<Long, Postings> postings = new HashMap<>();
+
+    void add(int id, String name, String description) {
+        remove(id);
+        String[] fields = {normalize(name), normalize(description)};
+        documents.put(id, fields);
+        for (long trigram : trigrams(fields)) {
+            postings.computeIfAbsent(trigram, k -> new Postings()).add(id);
+        }
+    }
+
+    void remove(int id) {
+        String[] fields = documents.remove(id);
+        if (fields == null) {
+            return;
+        }
+        for (long trigram : trigrams(fields)) {
+            Postings list = postings.get(trigram);
+            if (list != null && list.remove(id) && list.size == 0) {
+                postings.remove(trigram);
+            }
+        }
+    }
+
+    void clear() {
+        documents.clear();
+        postings.clear();
+    }
+
+    /**
+     * Ids of the products containing every whitespace-separated term of the
+     * query as a substring. Products matching every term in the name come
+     * first, then those matching in the description; each group is in id order.
+     *
+     * @param filter only ids accepted by the filter are returned
+     */
+    List<Integer> search(String query, int limit, IntPredicate filter) {
+        String[] terms = terms(query);
+        return collect(terms, candidates(terms), limit, filter);
+    }
+
+    /**
+     * Like {@link #search}, but only among {@code within}, such as the result
+     * of a query this one narrows down. Ids no longer indexed are skipped.
+     */
+    List<Integer> search(String query, Collection<Integer> within, int limit, IntPredicate filter) {
+        return collect(terms(query), within.stream().mapToInt(Integer::intValue).sorted().iterator(), limit, filter);
+    }
+
+    // Candidates must come in increasing id order
+    private List<Integer> collect(String[] terms, PrimitiveIterator.OfInt candidates, int limit, IntPredicate filter) {
+        List<Integer> nameMatches = new ArrayList<>();
+        List<Integer> otherMatches = new ArrayList<>();
+        // Stops as soon as enough name matches are found, since nothing later can outrank them
+        while (nameMatches.size() < limit && candidates.hasNext()) {
+            int id = candidates.nextInt();
+            String[] fields = documents.get(id);
+            if (fields == null) {
+                continue;
+            }
+            if (containsAll(fields[0], terms)) {
+                if (filter.test(id)) {
+                    nameMatches.add(id);
+                }
+            } else if (otherMatches.size() < limit && matchesAll(fields, terms) && filter.test(id)) {
+                otherMatches.add(id);
+            }
+        }
+        for (int i = 0; i < otherMatches.size() && nameMatches.size() < limit; i++) {
+            nameMatches.add(otherMatches.get(i));
+        }
+        return nameMatches;
+    }
+
+    private static boolean containsAll(String field, String[] terms) {
+        for (String term : terms) {
+            if (!field.contains(term)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matchesAll(String[] fields, String[] terms) {
+        for (String term : terms) {
+            if (!fields[0].contains(term) && !fields[1].contains(term)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Ids holding every trigram of every long-enough term, in increasing order.
+    // The posting lists are intersected lazily, so a caller that stops early
+    // only pays for the ids it looked at. Without any trigram to go on, every
+    // id is a candidate.
+    private PrimitiveIterator.OfInt candidates(String[] terms) {
+        Set<Long> required = new LinkedHashSet<>();
+        for (String term : terms) {
+            for (int i = 0; i + 3 <= term.length(); i++) {
+                required.add(trigram(term, i));
+            }
+        }
+        if (required.isEmpty()) {
+            return documents.keySet().stream().mapToInt(Integer::intValue).iterator();
+        }
+        List<Postings> lists = new ArrayList<>(required.size());
+        for (long trigram : required) {
+            Postings list = postings.get(trigram);
+            if (list == null) {
+                return IntStream.empty().iterator();
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(list -> list.size));
+        return new Intersection(lists);
+    }
+
+    /**
+     * Walks the shortest posting list and keeps the ids found in all the
+     * others, searching each from where its previous match left off.
+     */
+    private static final class Intersection implements PrimitiveIterator.OfInt {
+        private final Postings[] lists;
+        private final int[] cursors;
+        private int position;
+        private int next = -1;
+
+        Intersection(List<Postings> lists) {
+            this.lists = lists.toArray(new Postings[0]);
+            this.cursors = new int[lists.size()];
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next >= 0;
+        }
+
+        @Override
+        public int nextInt() {
+            if (next < 0) {
+                throw new NoSuchElementException();
+            }
+            int id = next;
+            advance();
+            return id;
+        }
+
+        private void advance() {
+            Postings shortest = lists[0];
+            while (position < shortest.size) {
+                int id = shortest.ids[position++];
+                if (inAllOthers(id)) {
+                    next = id;
+                    return;
+                }
+            }
+            next = -1;
+        }
+
+        private boolean inAllOthers(int id) {
+            for (int l = 1; l < lists.length; l++) {
+                Postings list = lists[l];
+                if (cursors[l] >= list.size) {
+                    // This list is exhausted, so no later id can match either
+                    position = lists[0].size;
+                    return false;
+                }
+                int found = Arrays.binarySearch(list.ids, cursors[l], list.size, id);
+                if (found < 0) {
+                    cursors[l] = -found - 1;
+                    return false;
+                }
+                cursors[l] = found + 1;
+            }
+            return true;
+        }
+    }
+
+    private static Set<Long> trigrams(String[] fields) {
+        Set<Long> trigrams = new LinkedHashSet<>();
+        for (String field : fields) {
+            for (int i = 0; i + 3 <= field.length(); i++) {
+                trigrams.add(trigram(field, i));
+            }
+        }
+        return trigrams;
+    }
+
+    private static long trigram(String text, int start) {
+        return ((long) text.charAt(start) << 32)
+            | ((long) text.charAt(start + 1) << 16)
+            | text.charAt(start + 2);
+    }
+
+    private static String[] terms(String query) {
+        String normalized = normalize(query).trim();
+        return normalized.isEmpty() ? new String[0] : normalized.split("\\s+");
+    }
+
+    private static String normalize(String text) {
+        return text != null ? text.toLowerCase(Locale.ROOT) : "";
+    }
+
+    /**
+     * A sorted, growable list of product ids.
+     */
+    private static final class Postings {
+        int[] ids = new int[4];
+        int size;
+
+        void add(int id) {
+            // Ids are handed out in increasing order, so this is nearly always an append
+            if (size > 0 && ids[size - 1] >= id) {
+                int at = Arrays.binarySearch(ids, 0, size, id);
+                if (at >= 0) {
+                    return;
+                }
+                insert(-at - 1, id);
+                return;
+            }
+            insert(size, id);
+        }
+
+        boolean remove(int id) {
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at < 0) {
+                return false;
+            }
+            System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+            size--;
+            return true;
+        }
+
+        private void insert(int at, int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, at, ids, at + 1, size - at);
+            ids[at] = id;
+            size++;
+        }
+    }
+}
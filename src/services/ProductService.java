@@ -3,23 +3,54 @@ package src.services;
 import src.models.Product;
 import java.io.*;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+/**
+ * The product catalog. Mutations are serialized by the write lock; lookups
+ * share the read lock, and {@link #getAll()} hands out an immutable snapshot
+ * that is only rebuilt after the catalog changes.
+ *
+ * Products handed out are shared with other threads (panels, the journal
+ * compactor) and are never modified once stored. To change one, edit a copy
+ * ({@link Product#Product(Product)}) and pass it to {@link #update(Product)},
+ * which swaps it in under the write lock.
+ */
 public class ProductService implements BaseService<Product> {
     private static final String PRODUCTS_FILE = "data/products.csv";
     private static ProductService instance;
-    private List<Product> products;
-    private int nextId;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Shared by readers until the next mutation clears it
+    private volatile List<Product> snapshot;
+    // Report figures, current while their version matches the catalog's
+    private volatile ProductStatistics statistics;
+    // Catalog order by id, plus secondary indexes kept in step on every mutation
+    private final Map<Integer, Product> products = new LinkedHashMap<>();
+    private final Map<String, Map<Integer, Product>> productsByCategory = new HashMap<>();
+    private final TreeSet<Integer> lowStockIds = new TreeSet<>();
+    private final ProductSearchIndex searchIndex = new ProductSearchIndex();
+    // The category each product is indexed under, so unindexing never
+    // depends on what the object passed to update() looks like
+    private final Map<Integer, String> indexedCategory = new HashMap<>();
+    // Bumped on every change, so callers can tell whether a result they hold is current
+    private volatile long version;
+    private ProductJournal journal;
+    private final AtomicInteger nextId;
 
     private ProductService() {
-        products = new ArrayList<>();
+        journal = new ProductJournal(PRODUCTS_FILE);
         createProductsFileIfNotExists();
         load();
-        nextId = products.stream().mapToInt(Product::getId).max().orElse(0) + 1;
+        nextId = new AtomicInteger(products.keySet().stream().mapToInt(Integer::intValue).max().orElse(0) + 1);
     }
 
-    public static ProductService getInstance() {
+    public static synchronized ProductService getInstance() {
         if (instance == null) {
             instance = new ProductService();
         }
@@ -32,7 +63,7 @@ public class ProductService implements BaseService<Product> {
             try {
                 file.getParentFile().mkdirs();
                 try (PrintWriter writer = new PrintWriter(new FileWriter(file))) {
-                    writer.println("ID,Name,Description,Category,Price,Quantity,MinStock");
+                    writer.println(ProductJournal.HEADER);
                 }
             } catch (IOException e) {
                 e.printStackTrace();
@@ -40,103 +71,277 @@ public class ProductService implements BaseService<Product> {
         }
     }
 
+    // Published after the write lock is released
+    private static void publish(DataChangeEvent<?> event) {
+        EventBus.getInstance().publish(event);
+    }
+
+    /**
+     * An unmodifiable snapshot of the catalog. Repeated calls return the same
+     * list until the catalog changes.
+     */
     @Override
     public List<Product> getAll() {
-        return new ArrayList<>(products);
+        List<Product> current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        lock.readLock().lock();
+        try {
+            // Published under the read lock, so a writer can't clear it in between
+            current = Collections.unmodifiableList(new ArrayList<>(products.values()));
+            snapshot = current;
+            return current;
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     @Override
     public Product getById(int id) {
-        return products.stream()
-            .filter(product -> product.getId() == id)
-            .findFirst()
-            .orElse(null);
+        lock.readLock().lock();
+        try {
+            return products.get(id);
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     @Override
     public boolean add(Product product) {
-        if (getById(product.getId()) != null) {
-            return false;
+        lock.writeLock().lock();
+        try {
+            if (products.containsKey(product.getId())) {
+                return false;
+            }
+            products.put(product.getId(), product);
+            index(product);
+            journal.appendAdd(product);
+            changed();
+        } finally {
+            lock.writeLock().unlock();
         }
-        products.add(product);
-        save();
+        publish(new DataChangeEvent<>(DataChangeEvent.EntityType.PRODUCT, product.getId(), null, product));
         return true;
     }
 
     @Override
     public boolean update(Product product) {
-        Product existingProduct = getById(product.getId());
-        if (existingProduct == null) {
-            return false;
+        Product previous;
+        lock.writeLock().lock();
+        try {
+            if (!products.containsKey(product.getId())) {
+                return false;
+            }
+            unindex(product.getId());
+            previous = products.put(product.getId(), product);
+            index(product);
+            journal.appendUpdate(product);
+            changed();
+        } finally {
+            lock.writeLock().unlock();
         }
-        products.remove(existingProduct);
-        products.add(product);
-        save();
+        publish(new DataChangeEvent<>(DataChangeEvent.EntityType.PRODUCT, product.getId(), previous, product));
         return true;
     }
 
     @Override
     public boolean delete(int id) {
-        Product product = getById(id);
-        if (product == null) {
-            return false;
+        Product removed;
+        lock.writeLock().lock();
+        try {
+            removed = products.remove(id);
+            if (removed == null) {
+                return false;
+            }
+            unindex(id);
+            journal.appendDelete(id);
+            changed();
+        } finally {
+            lock.writeLock().unlock();
         }
-        products.remove(product);
-        save();
+        publish(new DataChangeEvent<>(DataChangeEvent.EntityType.PRODUCT, id, removed, null));
         return true;
     }
 
+    private void index(Product product) {
+        String category = product.getCategory();
+        productsByCategory.computeIfAbsent(category, k -> new LinkedHashMap<>()).put(product.getId(), product);
+        indexedCategory.put(product.getId(), category);
+        if (product.getQuantity() <= product.getMinStock()) {
+            lowStockIds.add(product.getId());
+        }
+        searchIndex.add(product.getId(), product.getName(), product.getDescription());
+    }
+
+    private void unindex(int id) {
+        String category = indexedCategory.remove(id);
+        Map<Integer, Product> inCategory = productsByCategory.get(category);
+        if (inCategory != null) {
+            inCategory.remove(id);
+            if (inCategory.isEmpty()) {
+                productsByCategory.remove(category);
+            }
+        }
+        lowStockIds.remove(id);
+        searchIndex.remove(id);
+    }
+
+    // Called with the write lock held after every mutation
+    private void changed() {
+        snapshot = null;
+        version++;
+        if (journal.needsCompaction()) {
+            journal.compactAsync(new ArrayList<>(products.values()));
+        }
+    }
+
+    /**
+     * Folds the journal into a fresh snapshot of data/products.csv right away.
+     * Regular mutations only append to the journal; see {@link ProductJournal}.
+     */
     @Override
     public void save() {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(PRODUCTS_FILE))) {
-            writer.println("ID,Name,Description,Category,Price,Quantity,MinStock");
-            for (Product product : products) {
-                writer.println(String.format("%d,%s,%s,%s,%.2f,%d,%d",
-                    product.getId(),
-                    product.getName(),
-                    product.getDescription(),
-                    product.getCategory(),
-                    product.getPrice(),
-                    product.getQuantity(),
-                    product.getMinStock()));
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
+        lock.writeLock().lock();
+        try {
+            journal.compactNow(new ArrayList<>(products.values()));
+        } finally {
+            lock.writeLock().unlock();
         }
     }
 
     @Override
     public void load() {
-        products.clear();
-        try (BufferedReader reader = new BufferedReader(new FileReader(PRODUCTS_FILE))) {
-            String line = reader.readLine(); // Skip header
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts.length >= 7) {
-                    Product product = new Product(
-                        Integer.parseInt(parts[0]),
-                        parts[1],
-                        parts[2],
-                        parts[3],
-                        Double.parseDouble(parts[4]),
-                        Integer.parseInt(parts[5]),
-                        Integer.parseInt(parts[6])
-                    );
-                    products.add(product);
-                }
+        lock.writeLock().lock();
+        try {
+            journal.load(products);
+            productsByCategory.clear();
+            indexedCategory.clear();
+            lowStockIds.clear();
+            searchIndex.clear();
+            for (Product product : products.values()) {
+                index(product);
             }
-        } catch (IOException e) {
-            e.printStackTrace();
+            snapshot = null;
+            version++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        publish(DataChangeEvent.reload(DataChangeEvent.EntityType.PRODUCT));
+    }
+
+    public List<Product> getByCategory(String category) {
+        lock.readLock().lock();
+        try {
+            Map<Integer, Product> inCategory = productsByCategory.get(category);
+            return inCategory != null ? new ArrayList<>(inCategory.values()) : new ArrayList<>();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Products whose name or description contains every whitespace-separated
+     * term of the query, ignoring case, best matches first.
+     *
+     * @param category only products in this category, or null for all
+     * @param limit the maximum number of products returned
+     */
+    public List<Product> search(String query, String category, int limit) {
+        lock.readLock().lock();
+        try {
+            List<Integer> ids = searchIndex.search(query, limit,
+                id -> category == null || category.equals(indexedCategory.get(id)));
+            List<Product> matches = new ArrayList<>(ids.size());
+            for (int id : ids) {
+                matches.add(products.get(id));
+            }
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Like {@link #search(String, String, int)}, but only among {@code within}.
+     * When a query only adds to an earlier one, every match is already in the
+     * earlier complete result, so searching that is enough.
+     */
+    public List<Product> search(String query, String category, int limit, List<Product> within) {
+        List<Integer> candidates = new ArrayList<>(within.size());
+        for (Product product : within) {
+            candidates.add(product.getId());
+        }
+        lock.readLock().lock();
+        try {
+            List<Integer> ids = searchIndex.search(query, candidates, limit,
+                id -> category == null || category.equals(indexedCategory.get(id)));
+            List<Product> matches = new ArrayList<>(ids.size());
+            for (int id : ids) {
+                matches.add(products.get(id));
+            }
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * A counter that changes whenever the catalog does. Results computed at
+     * the same version are still current.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Report figures for the whole catalog. They are computed on first use
+     * and shared by every caller until the catalog changes.
+     */
+    public ProductStatistics getStatistics() {
+        ProductStatistics current = statistics;
+        if (current != null && current.getVersion() == version) {
+            return current;
+        }
+        // Read before the snapshot, so a change in between leaves the result looking stale
+        long currentVersion = version;
+        current = ProductStatistics.compute(getAll(), currentVersion);
+        statistics = current;
+        return current;
+    }
+
+    public int getCount() {
+        lock.readLock().lock();
+        try {
+            return products.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getLowStockCount() {
+        lock.readLock().lock();
+        try {
+            return lowStockIds.size();
+        } finally {
+            lock.readLock().unlock();
         }
     }
 
     public List<Product> getLowStockProducts() {
-        return products.stream()
-            .filter(product -> product.getQuantity() <= product.getMinStock())
-            .collect(Collectors.toList());
+        lock.readLock().lock();
+        try {
+            List<Product> lowStock = new ArrayList<>(lowStockIds.size());
+            for (int id : lowStockIds) {
+                lowStock.add(products.get(id));
+            }
+            return lowStock;
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     public int getNextId() {
-        return nextId++;
+        return nextId.getAndIncrement();
     }
 } 
\ No newline at end of file
@@ -0,0 +1,195 @@
+package src.services;
+
+import src.models.Product;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Catalog figures for the reports, computed in a single pass over a list of
+ * products: count, total stock value and average price per category, plus the
+ * price range and stock level distributions. Large catalogs are split into
+ * chunks that are summed in parallel on the common fork/join pool and merged.
+ *
+ * Use {@link ProductService#getStatistics()}, which keeps the result until the
+ * catalog changes.
+ */
+public class ProductStatistics {
+    public static final String[] PRICE_RANGES = {"Under $10", "$10-$50", "$50-$100", "Over $100"};
+    public static final String[] STOCK_LEVELS = {"In Stock", "Low Stock", "Out of Stock"};
+    // Below this many products a single thread is faster than splitting the work
+    private static final int CHUNK_SIZE = 20000;
+
+    private final long version;
+    private final int productCount;
+    private final Map<String, CategoryStatistics> byCategory;
+    private final Map<String, Long> priceRanges;
+    private final Map<String, Long> stockLevels;
+
+    private ProductStatistics(long version, Totals totals) {
+        this.version = version;
+        this.productCount = totals.productCount;
+        this.byCategory = Collections.unmodifiableMap(new TreeMap<>(totals.categories));
+        this.priceRanges = Collections.unmodifiableMap(counts(PRICE_RANGES, totals.priceRanges));
+        this.stockLevels = Collections.unmodifiableMap(counts(STOCK_LEVELS, totals.stockLevels));
+    }
+
+    /**
+     * @param version the catalog version the products were read at
+     */
+    static ProductStatistics compute(List<Product> products, long version) {
+        Totals totals = products.size() <= CHUNK_SIZE
+            ? new Totals().addAll(products, 0, products.size())
+            : ForkJoinPool.commonPool().invoke(new Aggregate(products, 0, products.size()));
+        return new ProductStatistics(version, totals);
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    public int getProductCount() {
+        return productCount;
+    }
+
+    /**
+     * Figures per category, sorted by category name.
+     */
+    public Map<String, CategoryStatistics> getByCategory() {
+        return byCategory;
+    }
+
+    /**
+     * Number of products per price range, in {@link #PRICE_RANGES} order.
+     * Ranges without products are left out.
+     */
+    public Map<String, Long> getPriceRanges() {
+        return priceRanges;
+    }
+
+    /**
+     * Number of products per stock level, in {@link #STOCK_LEVELS} order.
+     * Levels without products are left out.
+     */
+    public Map<String, Long> getStockLevels() {
+        return stockLevels;
+    }
+
+    private static int priceRange(double price) {
+        if (price < 10) return 0;
+        if (price < 50) return 1;
+        if (price < 100) return 2;
+        return 3;
+    }
+
+    private static int stockLevel(Product product) {
+        if (product.getQuantity() == 0) return 2;
+        if (product.getQuantity() <= product.getMinStock()) return 1;
+        return 0;
+    }
+
+    private static Map<String, Long> counts(String[] labels, long[] counts) {
+        Map<String, Long> map = new LinkedHashMap<>();
+        for (int i = 0; i < labels.length; i++) {
+            if (counts[i] > 0) {
+                map.put(labels[i], counts[i]);
+            }
+        }
+        return map;
+    }
+
+    public static class CategoryStatistics {
+        private long count;
+        private double totalValue;
+        private double priceSum;
+
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Sum of price times quantity.
+         */
+        public double getTotalValue() {
+            return totalValue;
+        }
+
+        public double getAveragePrice() {
+            return count == 0 ? 0 : priceSum / count;
+        }
+
+        private void add(Product product) {
+            count++;
+            totalValue += product.getPrice() * product.getQuantity();
+            priceSum += product.getPrice();
+        }
+
+        private void merge(CategoryStatistics other) {
+            count += other.count;
+            totalValue += other.totalValue;
+            priceSum += other.priceSum;
+        }
+    }
+
+    // Running sums for one chunk of the catalog
+    private static final class Totals {
+        final Map<String, CategoryStatistics> categories = new LinkedHashMap<>();
+        final long[] priceRanges = new long[PRICE_RANGES.length];
+        final long[] stockLevels = new long[STOCK_LEVELS.length];
+        int productCount;
+
+        Totals addAll(List<Product> products, int from, int to) {
+            for (int i = from; i < to; i++) {
+                Product product = products.get(i);
+                categories.computeIfAbsent(product.getCategory(), k -> new CategoryStatistics()).add(product);
+                priceRanges[priceRange(product.getPrice())]++;
+                stockLevels[stockLevel(product)]++;
+            }
+            productCount += to - from;
+            return this;
+        }
+
+        Totals merge(Totals other) {
+            other.categories.forEach((category, statistics) ->
+                categories.computeIfAbsent(category, k -> new CategoryStatistics()).merge(statistics));
+            for (int i = 0; i < priceRanges.length; i++) {
+                priceRanges[i] += other.priceRanges[i];
+            }
+            for (int i = 0; i < stockLevels.length; i++) {
+                stockLevels[i] += other.stockLevels[i];
+            }
+            productCount += other.productCount;
+            return this;
+        }
+    }
+
+    private static final class Aggregate extends RecursiveTask<Totals> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Product> products;
+        private final int from;
+        private final int to;
+
+        Aggregate(List<Product> products, int from, int to) {
+            this.products = products;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Totals compute() {
+            if (to - from <= CHUNK_SIZE) {
+                return new Totals().addAll(products, from, to);
+            }
+            int middle = (from + to) >>> 1;
+            Aggregate right = new Aggregate(products, middle, to);
+            right.fork();
+            Totals left = new Aggregate(products, from, middle).compute();
+            return left.merge(right.join());
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package src.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.IntPredicate;
+
+/**
+ * Full-text index over task titles and descriptions, ranked with BM25.
+ *
+ * Text is split into lower-cased runs of letters and digits. A title counts
+ * twice towards both term frequency and document length, so a word in the
+ * title outweighs the same word in the description. Each term keeps its
+ * postings sorted by task id, which lets a query walk all of its terms'
+ * lists side by side, scoring one task at a time.
+ */
+class TaskSearchIndex {
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int TITLE_WEIGHT = 2;
+
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<Integer, Document> documents = new HashMap<>();
+    private long totalLength;
+
+    void add(int id, String title, String description) {
+        remove(id);
+        Map<String, Integer> frequencies = new LinkedHashMap<>();
+        int length = count(title, TITLE_WEIGHT, frequencies) + count(description, 1, frequencies);
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), k -> new Postings()).add(id, entry.getValue(), length);
+        }
+        documents.put(id, new Document(frequencies.keySet().toArray(new String[0]), length));
+        totalLength += length;
+    }
+
+    void remove(int id) {
+        Document document = documents.remove(id);
+        if (document == null) {
+            return;
+        }
+        for (String term : document.terms) {
+            Postings list = postings.get(term);
+            list.remove(id);
+            if (list.size == 0) {
+                postings.remove(term);
+            }
+        }
+        totalLength -= document.length;
+    }
+
+    void clear() {
+        postings.clear();
+        documents.clear();
+        totalLength = 0;
+    }
+
+    /**
+     * Ids of the tasks containing at least one query term, highest BM25 score
+     * first; ties go to the lower id.
+     *
+     * @param filter only ids accepted by the filter are returned
+     */
+    List<Integer> search(String query, int limit, IntPredicate filter) {
+        List<Postings> found = new ArrayList<>();
+        for (String term : tokenize(query).keySet()) {
+            Postings list = postings.get(term);
+            if (list != null) {
+                found.add(list);
+            }
+        }
+        if (found.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        // Terms ordered by the most they can add to any score (MaxScore). Once
+        // the result heap is full, a prefix of low-impact terms whose bounds sum
+        // to no more than the weakest result cannot lift a task in on their own,
+        // so only tasks from the remaining lists are visited and the prefix is
+        // just probed for them.
+        int documentCount = documents.size();
+        double averageLength = (double) totalLength / documentCount;
+        int n = found.size();
+        Postings[] lists = new Postings[n];
+        double[] idfs = new double[n];
+        double[] bounds = new double[n];
+        Integer[] order = new Integer[n];
+        for (int t = 0; t < n; t++) {
+            order[t] = t;
+        }
+        Arrays.sort(order, Comparator.comparingDouble(t -> idf(found.get(t), documentCount)));
+        for (int t = 0; t < n; t++) {
+            lists[t] = found.get(order[t]);
+            idfs[t] = idf(lists[t], documentCount);
+            // The contribution grows with tf and shrinks with length, so the
+            // list's largest tf and shortest task bound it
+            bounds[t] = contribution(lists[t].maxFrequency, lists[t].minLength, idfs[t], averageLength);
+        }
+        double[] cumulative = new double[n];
+        for (int t = 0; t < n; t++) {
+            cumulative[t] = bounds[t] + (t > 0 ? cumulative[t - 1] : 0);
+        }
+
+        // Lowest score, then highest id, at the head so it is evicted first
+        PriorityQueue<Hit> best = new PriorityQueue<>(
+            Comparator.<Hit>comparingDouble(hit -> hit.score).thenComparingInt(hit -> -hit.id));
+        int[] cursors = new int[n];
+        int essential = 0;
+        while (essential < n) {
+            // The next task is the smallest id any essential list is positioned at
+            int id = Integer.MAX_VALUE;
+            for (int t = essential; t < n; t++) {
+                if (cursors[t] < lists[t].size && lists[t].ids[cursors[t]] < id) {
+                    id = lists[t].ids[cursors[t]];
+                }
+            }
+            if (id == Integer.MAX_VALUE) {
+                break;
+            }
+            double score = 0;
+            for (int t = essential; t < n; t++) {
+                Postings list = lists[t];
+                if (cursors[t] < list.size && list.ids[cursors[t]] == id) {
+                    score += contribution(list.frequencies[cursors[t]], list.lengths[cursors[t]], idfs[t], averageLength);
+                    cursors[t]++;
+                }
+            }
+            double threshold = best.size() < limit ? -1 : best.peek().score;
+            for (int t = essential - 1; t >= 0 && score + cumulative[t] > threshold; t--) {
+                Postings list = lists[t];
+                int at = Arrays.binarySearch(list.ids, cursors[t], list.size, id);
+                if (at >= 0) {
+                    score += contribution(list.frequencies[at], list.lengths[at], idfs[t], averageLength);
+                    cursors[t] = at + 1;
+                } else {
+                    cursors[t] = -at - 1;
+                }
+            }
+            if (score > threshold && filter.test(id)) {
+                if (best.size() == limit) {
+                    best.poll();
+                }
+                best.add(new Hit(id, score));
+                if (best.size() == limit) {
+                    threshold = best.peek().score;
+                    while (essential < n && cumulative[essential] <= threshold) {
+                        essential++;
+                    }
+                }
+            }
+        }
+
+        Integer[] ids = new Integer[best.size()];
+        for (int i = ids.length - 1; i >= 0; i--) {
+            ids[i] = best.poll().id;
+        }
+        return Arrays.asList(ids);
+    }
+
+    private static double idf(Postings list, int documentCount) {
+        return Math.log(1 + (documentCount - list.size + 0.5) / (list.size + 0.5));
+    }
+
+    private static double contribution(double tf, int length, double idf, double averageLength) {
+        double norm = K1 * (1 - B + B * length / averageLength);
+        return idf * tf * (K1 + 1) / (tf + norm);
+    }
+
+    // Adds each term's occurrences, times weight, to frequencies; returns the weighted term count
+    private static int count(String text, int weight, Map<String, Integer> frequencies) {
+        int length = 0;
+        for (Map.Entry<String, Integer> entry : tokenize(text).entrySet()) {
+            frequencies.merge(entry.getKey(), entry.getValue() * weight, Integer::sum);
+            length += entry.getValue() * weight;
+        }
+        return length;
+    }
+
+    private static Map<String, Integer> tokenize(String text) {
+        Map<String, Integer> terms = new LinkedHashMap<>();
+        if (text == null) {
+            return terms;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                terms.merge(lower.substring(start, i), 1, Integer::sum);
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    private static final class Document {
+        // Distinct terms, so the task can be taken out of their postings
+        final String[] terms;
+        final int length;
+
+        Document(String[] terms, int length) {
+            this.terms = terms;
+            this.length = length;
+        }
+    }
+
+    private static final class Hit {
+        final int id;
+        final double score;
+
+        Hit(int id, double score) {
+            this.id = id;
+            this.score = score;
+        }
+    }
+
+    /**
+     * The tasks containing one term, sorted by id, with the term's weighted
+     * frequency and the task's weighted length alongside.
+     */
+    private static final class Postings {
+        int[] ids = new int[4];
+        int[] frequencies = new int[4];
+        int[] lengths = new int[4];
+        int size;
+        // Bounds for MaxScore; left as they are on removal, where they stay valid if loose
+        int maxFrequency;
+        int minLength = Integer.MAX_VALUE;
+
+        void add(int id, int frequency, int length) {
+            int at = size;
+            // Task ids are handed out in increasing order, so this is nearly always an append
+            if (size > 0 && ids[size - 1] > id) {
+                at = -Arrays.binarySearch(ids, 0, size, id) - 1;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+                lengths = Arrays.copyOf(lengths, size * 2);
+            }
+            System.arraycopy(ids, at, ids, at + 1, size - at);
+            System.arraycopy(frequencies, at, frequencies, at + 1, size - at);
+            System.arraycopy(lengths, at, lengths, at + 1, size - at);
+            ids[at] = id;
+            frequencies[at] = frequency;
+            lengths[at] = length;
+            size++;
+            maxFrequency = Math.max(maxFrequency, frequency);
+            minLength = Math.min(minLength, length);
+        }
+
+        void remove(int id) {
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+            System.arraycopy(frequencies, at + 1, frequencies, at, size - at - 1);
+            System.arraycopy(lengths, at + 1, lengths, at, size - at - 1);
+            size--;
+        }
+    }
+}
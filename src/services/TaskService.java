@@ -3,28 +3,89 @@ package src.services;
 import src.models.Task;
 import java.io.*;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
-import java.util.stream.Collectors;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
 
+/**
+ * Tasks with their indexes and aggregates. Mutations are serialized by the
+ * write lock; queries share the read lock, and {@link #getAllTasks()} hands out
+ * an immutable snapshot that is only rebuilt after a task changes.
+ *
+ * Tasks handed out are shared with other threads and are never modified once
+ * stored. To change one, edit a copy ({@link Task#Task(Task)}) and pass it to
+ * {@link #updateTask(Task)}, which swaps it in under the write lock.
+ */
 public class TaskService {
     private static final String TASKS_FILE = "data/tasks.csv";
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    private static final String STATUS_PENDING = "Pending";
+    private static final String STATUS_COMPLETED = "Completed";
     private static TaskService instance;
-    private List<Task> tasks;
-    private int nextId;
+    private final Map<Integer, Task> tasks = new LinkedHashMap<>();
+    private final Map<String, Map<Integer, Task>> tasksByAssignee = new HashMap<>();
+    // Aggregates for reports and the dashboard, adjusted on every mutation
+    private final Map<String, Integer> statusCounts = new HashMap<>();
+    private final Map<String, Integer> priorityCounts = new HashMap<>();
+    private final Map<String, Integer> completedByAssignee = new HashMap<>();
+    // What each task was counted under, so uncounting never depends on
+    // what the object passed to updateTask() looks like
+    private final Map<Integer, IndexedTask> indexed = new HashMap<>();
+    private final TaskSearchIndex searchIndex = new TaskSearchIndex();
+    // Tasks with a due date in deadline order, all of them and those not yet completed
+    private final TreeMap<DueKey, Task> tasksByDueDate = new TreeMap<>();
+    private final TreeMap<DueKey, Task> openTasksByDueDate = new TreeMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Shared by readers until the next mutation clears it
+    private volatile List<Task> snapshot;
+    private final AtomicInteger nextId;
+
+    private static final class IndexedTask {
+        final String assignedTo;
+        final String status;
+        final String priority;
+        final DueKey due;
+
+        IndexedTask(Task task) {
+            this.assignedTo = task.getAssignedTo();
+            this.status = task.getStatus();
+            this.priority = task.getPriority();
+            this.due = task.getDueDate() != null ? new DueKey(task.getDueDate(), task.getId()) : null;
+        }
+    }
+
+    /**
+     * Orders tasks by due date, then id, so tasks due at the same moment stay distinct.
+     */
+    private static final class DueKey implements Comparable<DueKey> {
+        final LocalDateTime dueDate;
+        final int id;
+
+        DueKey(LocalDateTime dueDate, int id) {
+            this.dueDate = dueDate;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(DueKey other) {
+            int byDate = dueDate.compareTo(other.dueDate);
+            return byDate != 0 ? byDate : Integer.compare(id, other.id);
+        }
+    }
 
     private TaskService() {
-        tasks = new ArrayList<>();
         createTasksFileIfNotExists();
         loadTasks();
-        nextId = tasks.stream().mapToInt(Task::getId).max().orElse(0) + 1;
+        nextId = new AtomicInteger(tasks.keySet().stream().mapToInt(Integer::intValue).max().orElse(0) + 1);
     }
 
-    public static TaskService getInstance() {
+    public static synchronized TaskService getInstance() {
         if (instance == null) {
             instance = new TaskService();
         }
@@ -45,98 +106,316 @@ public class TaskService {
         }
     }
 
+    // Published after the write lock is released
+    private static void publish(DataChangeEvent<?> event) {
+        EventBus.getInstance().publish(event);
+    }
+
+    /**
+     * An unmodifiable snapshot of all tasks. Repeated calls return the same
+     * list until a task changes.
+     */
     public List<Task> getAllTasks() {
-        return new ArrayList<>(tasks);
+        List<Task> current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        lock.readLock().lock();
+        try {
+            // Published under the read lock, so a writer can't clear it in between
+            current = Collections.unmodifiableList(new ArrayList<>(tasks.values()));
+            snapshot = current;
+            return current;
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     public List<Task> getTasksByAssignedTo(String username) {
-        return tasks.stream()
-            .filter(task -> task.getAssignedTo().equals(username))
-            .collect(Collectors.toList());
+        lock.readLock().lock();
+        try {
+            Map<Integer, Task> assigned = tasksByAssignee.get(username);
+            return assigned != null ? new ArrayList<>(assigned.values()) : new ArrayList<>();
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     public Task getTaskById(int id) {
-        return tasks.stream()
-            .filter(task -> task.getId() == id)
-            .findFirst()
-            .orElse(null);
+        lock.readLock().lock();
+        try {
+            return tasks.get(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Tasks whose title or description contains any word of the query, ranked
+     * by relevance (BM25, with title words counting double).
+     *
+     * @param filter only tasks accepted by the filter are returned
+     * @param limit the maximum number of tasks returned
+     */
+    public List<Task> searchTasks(String query, Predicate<Task> filter, int limit) {
+        lock.readLock().lock();
+        try {
+            List<Integer> ids = searchIndex.search(query, limit, id -> filter.test(tasks.get(id)));
+            List<Task> matches = new ArrayList<>(ids.size());
+            for (int id : ids) {
+                matches.add(tasks.get(id));
+            }
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     public void addTask(Task task) {
-        task.setId(nextId++);
-        tasks.add(task);
-        saveTasks();
+        lock.writeLock().lock();
+        try {
+            task.setId(nextId.getAndIncrement());
+            tasks.put(task.getId(), task);
+            index(task);
+            snapshot = null;
+            saveTasks();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        publish(new DataChangeEvent<>(DataChangeEvent.EntityType.TASK, task.getId(), null, task));
     }
 
     public void updateTask(Task task) {
-        tasks.removeIf(t -> t.getId() == task.getId());
-        tasks.add(task);
-        saveTasks();
+        Task previous;
+        lock.writeLock().lock();
+        try {
+            unindex(task.getId());
+            previous = tasks.put(task.getId(), task);
+            index(task);
+            snapshot = null;
+            saveTasks();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        publish(new DataChangeEvent<>(DataChangeEvent.EntityType.TASK, task.getId(), previous, task));
     }
 
     public void deleteTask(int id) {
-        tasks.removeIf(task -> task.getId() == id);
-        saveTasks();
+        Task removed;
+        lock.writeLock().lock();
+        try {
+            removed = tasks.remove(id);
+            if (removed != null) {
+                unindex(id);
+                snapshot = null;
+            }
+            saveTasks();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (removed != null) {
+            publish(new DataChangeEvent<>(DataChangeEvent.EntityType.TASK, id, removed, null));
+        }
+    }
+
+    private void index(Task task) {
+        IndexedTask keys = new IndexedTask(task);
+        indexed.put(task.getId(), keys);
+        tasksByAssignee.computeIfAbsent(keys.assignedTo, k -> new LinkedHashMap<>()).put(task.getId(), task);
+        increment(statusCounts, keys.status, 1);
+        increment(priorityCounts, keys.priority, 1);
+        if (STATUS_COMPLETED.equals(keys.status)) {
+            increment(completedByAssignee, keys.assignedTo, 1);
+        }
+        if (keys.due != null) {
+            tasksByDueDate.put(keys.due, task);
+            if (!STATUS_COMPLETED.equals(keys.status)) {
+                openTasksByDueDate.put(keys.due, task);
+            }
+        }
+        searchIndex.add(task.getId(), task.getTitle(), task.getDescription());
+    }
+
+    private void unindex(int id) {
+        IndexedTask keys = indexed.remove(id);
+        if (keys == null) {
+            return;
+        }
+        Map<Integer, Task> assigned = tasksByAssignee.get(keys.assignedTo);
+        assigned.remove(id);
+        if (assigned.isEmpty()) {
+            tasksByAssignee.remove(keys.assignedTo);
+        }
+        increment(statusCounts, keys.status, -1);
+        increment(priorityCounts, keys.priority, -1);
+        if (STATUS_COMPLETED.equals(keys.status)) {
+            increment(completedByAssignee, keys.assignedTo, -1);
+        }
+        if (keys.due != null) {
+            tasksByDueDate.remove(keys.due);
+            openTasksByDueDate.remove(keys.due);
+        }
+        searchIndex.remove(id);
+    }
+
+    /**
+     * Tasks not yet completed whose due date is before {@code asOf}, earliest first.
+     */
+    public List<Task> getOverdueTasks(LocalDateTime asOf) {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(openTasksByDueDate.headMap(new DueKey(asOf, Integer.MIN_VALUE)).values());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of {@link #getOverdueTasks(LocalDateTime)}, counted on the due-date
+     * index without copying any task out.
+     */
+    public int getOverdueCount(LocalDateTime asOf) {
+        lock.readLock().lock();
+        try {
+            return openTasksByDueDate.headMap(new DueKey(asOf, Integer.MIN_VALUE)).size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Tasks due between {@code from} and {@code to}, both inclusive, earliest first.
+     */
+    public List<Task> getTasksDueBetween(LocalDateTime from, LocalDateTime to) {
+        lock.readLock().lock();
+        try {
+            if (from.isAfter(to)) {
+                return new ArrayList<>();
+            }
+            return new ArrayList<>(tasksByDueDate.subMap(
+                new DueKey(from, Integer.MIN_VALUE), true,
+                new DueKey(to, Integer.MAX_VALUE), true).values());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of {@link #getTasksDueBetween(LocalDateTime, LocalDateTime)},
+     * counted on the due-date index without copying any task out.
+     */
+    public int countDueBetween(LocalDateTime from, LocalDateTime to) {
+        lock.readLock().lock();
+        try {
+            if (from.isAfter(to)) {
+                return 0;
+            }
+            return tasksByDueDate.subMap(
+                new DueKey(from, Integer.MIN_VALUE), true,
+                new DueKey(to, Integer.MAX_VALUE), true).size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The first {@code count} tasks not yet completed that are due at or after
+     * {@code from}, earliest first.
+     */
+    public List<Task> getNextDueTasks(LocalDateTime from, int count) {
+        lock.readLock().lock();
+        try {
+            List<Task> next = new ArrayList<>(Math.max(0, Math.min(count, openTasksByDueDate.size())));
+            for (Task task : openTasksByDueDate.tailMap(new DueKey(from, Integer.MIN_VALUE)).values()) {
+                if (next.size() >= count) {
+                    break;
+                }
+                next.add(task);
+            }
+            return next;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Adds delta to a count, dropping the key once it reaches zero
+    private static void increment(Map<String, Integer> counts, String key, int delta) {
+        counts.merge(key, delta, (a, b) -> a + b == 0 ? null : a + b);
     }
 
     // Report-related methods
     public Map<String, Integer> getTasksByStatus() {
-        return tasks.stream()
-            .collect(Collectors.groupingBy(
-                Task::getStatus,
-                Collectors.collectingAndThen(Collectors.counting(), Long::intValue)
-            ));
+        lock.readLock().lock();
+        try {
+            return new HashMap<>(statusCounts);
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     public Map<String, Integer> getTasksByPriority() {
-        return tasks.stream()
-            .collect(Collectors.groupingBy(
-                Task::getPriority,
-                Collectors.collectingAndThen(Collectors.counting(), Long::intValue)
-            ));
+        lock.readLock().lock();
+        try {
+            return new HashMap<>(priorityCounts);
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     public Map<String, Integer> getTasksByAssignedTo() {
-        return tasks.stream()
-            .collect(Collectors.groupingBy(
-                Task::getAssignedTo,
-                Collectors.collectingAndThen(Collectors.counting(), Long::intValue)
-            ));
+        lock.readLock().lock();
+        try {
+            Map<String, Integer> counts = new HashMap<>();
+            for (Map.Entry<String, Map<Integer, Task>> entry : tasksByAssignee.entrySet()) {
+                counts.put(entry.getKey(), entry.getValue().size());
+            }
+            return counts;
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     public int getPendingTasksCount() {
-        return (int) tasks.stream()
-            .filter(task -> task.getStatus().equals("Pending"))
-            .count();
+        lock.readLock().lock();
+        try {
+            return statusCounts.getOrDefault(STATUS_PENDING, 0);
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     public int getCompletedTasksCount() {
-        return (int) tasks.stream()
-            .filter(task -> task.getStatus().equals("Completed"))
-            .count();
+        lock.readLock().lock();
+        try {
+            return statusCounts.getOrDefault(STATUS_COMPLETED, 0);
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     public double getTaskCompletionRate() {
-        if (tasks.isEmpty()) return 0.0;
-        return (double) getCompletedTasksCount() / tasks.size() * 100;
+        lock.readLock().lock();
+        try {
+            if (tasks.isEmpty()) return 0.0;
+            return (double) getCompletedTasksCount() / tasks.size() * 100;
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     public Map<String, Double> getEmployeeTaskCompletionRates() {
-        Map<String, List<Task>> tasksByEmployee = tasks.stream()
-            .collect(Collectors.groupingBy(Task::getAssignedTo));
-
-        Map<String, Double> completionRates = new HashMap<>();
-        for (Map.Entry<String, List<Task>> entry : tasksByEmployee.entrySet()) {
-            List<Task> employeeTasks = entry.getValue();
-            if (!employeeTasks.isEmpty()) {
-                long completedCount = employeeTasks.stream()
-                    .filter(task -> task.getStatus().equals("Completed"))
-                    .count();
-                completionRates.put(entry.getKey(), 
-                    (double) completedCount / employeeTasks.size() * 100);
+        lock.readLock().lock();
+        try {
+            Map<String, Double> completionRates = new HashMap<>();
+            for (Map.Entry<String, Map<Integer, Task>> entry : tasksByAssignee.entrySet()) {
+                int completedCount = completedByAssignee.getOrDefault(entry.getKey(), 0);
+                completionRates.put(entry.getKey(),
+                    (double) completedCount / entry.getValue().size() * 100);
             }
+            return completionRates;
+        } finally {
+            lock.readLock().unlock();
         }
-        return completionRates;
     }
 
     private void loadTasks() {
@@ -145,28 +424,24 @@ public class TaskService {
             return;
         }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            boolean isFirstLine = true;
-            while ((line = reader.readLine()) != null) {
-                if (isFirstLine) {
-                    isFirstLine = false;
-                    continue;
-                }
-                String[] parts = line.split(",");
-                if (parts.length >= 9) {
+        try (CsvReader reader = CsvReader.open(TASKS_FILE)) {
+            reader.next(); // Skip header
+            while (reader.next()) {
+                if (reader.fieldCount() >= 9) {
                     Task task = new Task(
-                        parts[1], // title
-                        parts[2], // description
-                        parts[3], // assignedTo
-                        parts[4], // status
-                        parts[5], // priority
-                        LocalDateTime.parse(parts[6], DATE_FORMATTER), // dueDate
-                        parts[7]  // createdBy
+                        reader.getString(1), // title
+                        reader.getString(2), // description
+                        reader.getString(3), // assignedTo
+                        reader.getString(4), // status
+                        reader.getString(5), // priority
+                        reader.getDateTime(6), // dueDate
+                        reader.getString(7)  // createdBy
                     );
-                    task.setId(Integer.parseInt(parts[0]));
-                    task.setCreatedAt(LocalDateTime.parse(parts[8], DATE_FORMATTER));
-                    tasks.add(task);
+                    task.setId(reader.getInt(0));
+                    task.setCreatedAt(reader.getDateTime(8));
+                    unindex(task.getId());
+                    tasks.put(task.getId(), task);
+                    index(task);
                 }
             }
         } catch (IOException e) {
@@ -175,23 +450,24 @@ public class TaskService {
     }
 
     private void saveTasks() {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(TASKS_FILE))) {
+        try (CsvWriter writer = CsvWriter.replacing(TASKS_FILE)) {
             // Write header
-            writer.println("ID,Title,Description,Assigned To,Status,Priority,Due Date,Created By,Created At");
+            writer.writeLine("ID,Title,Description,Assigned To,Status,Priority,Due Date,Created By,Created At");
             
             // Write data
-            for (Task task : tasks) {
-                writer.println(String.format("%d,%s,%s,%s,%s,%s,%s,%s,%s",
-                    task.getId(),
-                    task.getTitle(),
-                    task.getDescription(),
-                    task.getAssignedTo(),
-                    task.getStatus(),
-                    task.getPriority(),
-                    task.getDueDate().format(DATE_FORMATTER),
-                    task.getCreatedBy(),
-                    task.getCreatedAt().format(DATE_FORMATTER)));
+            for (Task task : tasks.values()) {
+                writer.write(task.getId())
+                    .write(task.getTitle())
+                    .write(task.getDescription())
+                    .write(task.getAssignedTo())
+                    .write(task.getStatus())
+                    .write(task.getPriority())
+                    .write(task.getDueDate())
+                    .write(task.getCreatedBy())
+                    .write(task.getCreatedAt())
+                    .endRecord();
             }
+            writer.commit();
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -5,80 +5,227 @@ import java.io.*;
 import java.util.*;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.nio.charset.StandardCharsets;
 
+/**
+ * The account directory. Mutations are serialized by the write lock; lookups
+ * share the read lock, and {@link #getAllUsers()} hands out an immutable
+ * snapshot that is only rebuilt after an account changes.
+ *
+ * Accounts handed out are shared with other threads and are never modified
+ * once stored. To change one, edit a copy ({@link User#User(User)}) and pass
+ * it to {@link #updateUser(User)}, which swaps it in under the write lock.
+ */
 public class UserService {
     private static final String USERS_FILE = "data/users.csv";
-    private List<User> users;
+    // Keyed by username exactly as spelled, so signing in stays case-sensitive;
+    // iteration keeps the directory order
+    private final Map<String, User> users = new LinkedHashMap<>();
+    // Lower-cased username -> number of accounts spelled that way ignoring case.
+    // New accounts must be unique in this index; older files may hold several.
+    private final Map<String, Integer> usernameKeys = new HashMap<>();
+    // Lower-cased email -> accounts registered with it, by username
+    private final Map<String, Map<String, User>> usersByEmail = new HashMap<>();
+    // The email each account is indexed under, so unindexing never depends
+    // on what the object passed to updateUser() looks like
+    private final Map<String, String> indexedEmail = new HashMap<>();
     private static UserService instance;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Shared by readers until the next mutation clears it
+    private volatile List<User> snapshot;
 
     private UserService() {
-        users = new ArrayList<>();
         loadUsers();
     }
 
-    public static UserService getInstance() {
+    public static synchronized UserService getInstance() {
         if (instance == null) {
             instance = new UserService();
         }
         return instance;
     }
 
+    /**
+     * An unmodifiable snapshot of all accounts. Repeated calls return the same
+     * list until an account changes.
+     */
     public List<User> getAllUsers() {
-        return new ArrayList<>(users);
+        List<User> current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        lock.readLock().lock();
+        try {
+            // Published under the read lock, so a writer can't clear it in between
+            current = Collections.unmodifiableList(new ArrayList<>(users.values()));
+            snapshot = current;
+            return current;
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
+    /**
+     * Looks up an account by its exact username.
+     */
     public User getUserByUsername(String username) {
-        return users.stream()
-            .filter(user -> user.getUsername().equals(username))
-            .findFirst()
-            .orElse(null);
+        lock.readLock().lock();
+        try {
+            return users.get(username);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Accounts registered with the given email address, ignoring case. Callers
+     * that identify an account by its email must compare it exactly.
+     */
+    public List<User> getUsersByEmail(String email) {
+        lock.readLock().lock();
+        try {
+            Map<String, User> accounts = email != null ? usersByEmail.get(normalize(email)) : null;
+            return accounts != null ? new ArrayList<>(accounts.values()) : new ArrayList<>();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Whether an account exists whose username equals {@code username} when
+     * case is ignored, which is enough to refuse it to a new account.
+     */
+    public boolean isUsernameTaken(String username) {
+        lock.readLock().lock();
+        try {
+            return usernameKeys.containsKey(normalize(username));
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
+    /**
+     * Adds the account unless its username is taken, ignoring case.
+     */
     public boolean addUser(User user) {
-        if (getUserByUsername(user.getUsername()) != null) {
-            return false;
+        lock.writeLock().lock();
+        try {
+            if (usernameKeys.containsKey(normalize(user.getUsername()))) {
+                return false;
+            }
+            index(user);
+            snapshot = null;
+            saveUsers();
+        } finally {
+            lock.writeLock().unlock();
         }
-        users.add(user);
-        saveUsers();
+        publish(new DataChangeEvent<>(DataChangeEvent.EntityType.USER, user.getUsername(), null, user));
         return true;
     }
 
     public boolean updateUser(User user) {
-        User existingUser = getUserByUsername(user.getUsername());
-        if (existingUser == null) {
-            return false;
+        User previous;
+        lock.writeLock().lock();
+        try {
+            String username = user.getUsername();
+            if (!users.containsKey(username)) {
+                return false;
+            }
+            unindexEmail(username);
+            previous = users.put(username, user);
+            indexEmail(user);
+            snapshot = null;
+            saveUsers();
+        } finally {
+            lock.writeLock().unlock();
         }
-        users.remove(existingUser);
-        users.add(user);
-        saveUsers();
+        publish(new DataChangeEvent<>(DataChangeEvent.EntityType.USER, user.getUsername(), previous, user));
         return true;
     }
 
     public boolean deleteUser(String username) {
-        User user = getUserByUsername(username);
-        if (user == null) {
-            return false;
+        User removed;
+        lock.writeLock().lock();
+        try {
+            removed = users.remove(username);
+            if (removed == null) {
+                return false;
+            }
+            unindexEmail(username);
+            increment(usernameKeys, normalize(username), -1);
+            snapshot = null;
+            saveUsers();
+        } finally {
+            lock.writeLock().unlock();
         }
-        users.remove(user);
-        saveUsers();
+        publish(new DataChangeEvent<>(DataChangeEvent.EntityType.USER, removed.getUsername(), removed, null));
         return true;
     }
 
+    // Published after the write lock is released
+    private static void publish(DataChangeEvent<?> event) {
+        EventBus.getInstance().publish(event);
+    }
+
     public boolean authenticateUser(String username, String password) {
-        User user = getUserByUsername(username);
-        if (user == null) {
-            return false;
+        lock.readLock().lock();
+        try {
+            User user = getUserByUsername(username);
+            if (user == null) {
+                return false;
+            }
+            return user.verifyPassword(password);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static String normalize(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    private static void increment(Map<String, Integer> counts, String key, int delta) {
+        counts.merge(key, delta, (a, b) -> a + b == 0 ? null : a + b);
+    }
+
+    private void index(User user) {
+        users.put(user.getUsername(), user);
+        increment(usernameKeys, normalize(user.getUsername()), 1);
+        indexEmail(user);
+    }
+
+    private void indexEmail(User user) {
+        if (user.getEmail() == null || user.getEmail().isEmpty()) {
+            return;
+        }
+        String email = normalize(user.getEmail());
+        usersByEmail.computeIfAbsent(email, k -> new LinkedHashMap<>()).put(user.getUsername(), user);
+        indexedEmail.put(user.getUsername(), email);
+    }
+
+    private void unindexEmail(String username) {
+        String email = indexedEmail.remove(username);
+        Map<String, User> accounts = email != null ? usersByEmail.get(email) : null;
+        if (accounts != null) {
+            accounts.remove(username);
+            if (accounts.isEmpty()) {
+                usersByEmail.remove(email);
+            }
         }
-        return user.verifyPassword(password);
     }
 
     public String[] getAllUsernames() {
-        return users.stream()
-            .map(User::getUsername)
-            .toArray(String[]::new);
+        lock.readLock().lock();
+        try {
+            return users.values().stream()
+                .map(User::getUsername)
+                .toArray(String[]::new);
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     private void loadUsers() {
@@ -88,39 +235,39 @@ public class UserService {
             return;
         }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            boolean isFirstLine = true;
-            while ((line = reader.readLine()) != null) {
-                if (isFirstLine) {
-                    isFirstLine = false;
-                    continue;
-                }
-                String[] parts = line.split(",");
-                if (parts.length >= 8) {
+        try (CsvReader reader = CsvReader.open(USERS_FILE)) {
+            reader.next(); // Skip header
+            while (reader.next()) {
+                if (reader.fieldCount() >= 8) {
                     User user = new User(
-                        parts[0], // username
-                        parts[1], // password (already hashed)
-                        parts[2], // fullName
-                        parts[3], // email
-                        parts[4], // department
-                        parts[5], // position
-                        parts[6], // phoneNumber
-                        Boolean.parseBoolean(parts[7]) // isAdmin
+                        reader.getString(0), // username
+                        reader.getString(1), // password (already hashed)
+                        reader.getString(2), // fullName
+                        reader.getString(3), // email
+                        reader.getString(4), // department
+                        reader.getString(5), // position
+                        reader.getString(6), // phoneNumber
+                        reader.getBoolean(7) // isAdmin
                     );
-                    if (parts.length >= 9 && !parts[8].isEmpty()) {
-                        user.setLastLogin(LocalDateTime.parse(parts[8]));
+                    if (!reader.isEmpty(8)) {
+                        user.setLastLogin(reader.getDateTime(8));
+                    }
+                    if (!reader.isEmpty(9)) {
+                        user.setLoginAttempts(reader.getInt(9));
                     }
-                    if (parts.length >= 10) {
-                        user.setLoginAttempts(Integer.parseInt(parts[9]));
+                    if (reader.fieldCount() >= 11) {
+                        user.setLocked(reader.getBoolean(10));
                     }
-                    if (parts.length >= 11) {
-                        user.setLocked(Boolean.parseBoolean(parts[10]));
+                    if (!reader.isEmpty(11)) {
+                        user.setLockExpiry(reader.getDateTime(11));
                     }
-                    if (parts.length >= 12 && !parts[11].isEmpty()) {
-                        user.setLockExpiry(LocalDateTime.parse(parts[11]));
+                    if (users.containsKey(user.getUsername())) {
+                        System.err.println("Duplicate account " + user.getUsername() + " in " + USERS_FILE
+                            + " cannot be looked up and will be dropped on the next save");
+                        continue;
                     }
-                    users.add(user);
+                    // Accounts differing only by case predate the rule against them and stay usable
+                    index(user);
                 }
             }
         } catch (IOException e) {
@@ -129,24 +276,24 @@ public class UserService {
     }
 
     private void saveUsers() {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(USERS_FILE))) {
-            writer.println("Username,Password,FullName,Email,Department,Position,PhoneNumber,IsAdmin,LastLogin,LoginAttempts,IsLocked,LockExpiry");
-            for (User user : users) {
-                writer.println(String.format("%s,%s,%s,%s,%s,%s,%s,%b,%s,%d,%b,%s",
-                    user.getUsername(),
-                    user.getPassword(),
-                    user.getFullName(),
-                    user.getEmail(),
-                    user.getDepartment(),
-                    user.getPosition(),
-                    user.getPhoneNumber(),
-                    user.isAdmin(),
-                    user.getLastLogin() != null ? user.getLastLogin().toString() : "",
-                    user.getLoginAttempts(),
-                    user.isLocked(),
-                    user.getLockExpiry() != null ? user.getLockExpiry().toString() : ""
-                ));
+        try (CsvWriter writer = CsvWriter.replacing(USERS_FILE)) {
+            writer.writeLine("Username,Password,FullName,Email,Department,Position,PhoneNumber,IsAdmin,LastLogin,LoginAttempts,IsLocked,LockExpiry");
+            for (User user : users.values()) {
+                writer.write(user.getUsername())
+                    .write(user.getPassword())
+                    .write(user.getFullName())
+                    .write(user.getEmail())
+                    .write(user.getDepartment())
+                    .write(user.getPosition())
+                    .write(user.getPhoneNumber())
+                    .write(user.isAdmin())
+                    .write(user.getLastLogin())
+                    .write(user.getLoginAttempts())
+                    .write(user.isLocked())
+                    .write(user.getLockExpiry())
+                    .endRecord();
             }
+            writer.commit();
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -164,7 +311,7 @@ public class UserService {
             "1234567890",
             true
         );
-        users.add(admin);
+        index(admin);
         saveUsers();
     }
 
@@ -2,9 +2,9 @@ package src.ui;
 
 import src.models.User;
 import src.models.Product;
-import src.models.Attendance;
 import src.services.ProductService;
 import src.services.AttendanceService;
+import src.services.DailyAttendance;
 
 import javax.swing.*;
 import java.awt.*;
@@ -27,7 +27,7 @@ public class AIHelperPanel extends JPanel {
     public AIHelperPanel(ProductService productService, User currentUser, AttendanceService attendanceService) {
         this.productService = ProductService.getInstance();
         this.currentUser = currentUser;
-        this.attendanceService = new AttendanceService();
+        this.attendanceService = AttendanceService.getInstance();
         setupUI();
     }
 
@@ -142,15 +142,14 @@ public class AIHelperPanel extends JPanel {
 
         // Attendance related queries
         if (message.contains("attendance") || message.contains("present") || message.contains("absent") || message.contains("attendance rate")) {
-            List<Attendance> todayAttendance = attendanceService.getAttendanceByDate(LocalDate.now());
-            if (todayAttendance.isEmpty()) {
+            LocalDate today = LocalDate.now();
+            DailyAttendance todayAttendance = attendanceService.getDailyAttendance(today, today).get(0);
+            if (todayAttendance.getTotal() == 0) {
                  return "No attendance data available for today.";
             }
-            long presentCount = todayAttendance.stream()
-                .filter(Attendance::isPresent)
-                .count();
-            long absentCount = todayAttendance.size() - presentCount;
-            double attendanceRate = (double) presentCount / todayAttendance.size() * 100;
+            int presentCount = todayAttendance.getPresent();
+            int absentCount = todayAttendance.getAbsent();
+            double attendanceRate = todayAttendance.getRate();
 
              if(message.contains("present count")){
                 return String.format("Number of people present today: %d", presentCount);
@@ -165,7 +164,7 @@ public class AIHelperPanel extends JPanel {
              }
 
             return String.format("Today's attendance: %d/%d present (%.1f%%)",
-                presentCount, todayAttendance.size(), attendanceRate);
+                presentCount, todayAttendance.getTotal(), attendanceRate);
         }
 
         // Default response
@@ -3,42 +3,51 @@ package src.ui;
 import src.models.Attendance;
 import src.models.User;
 import src.services.AttendanceService;
+import src.services.DataChangeEvent;
+import src.services.DataChangeEvent.EntityType;
 import src.services.UserService;
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.*;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.AbstractList;
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
-public class AttendancePanel extends JPanel {
+public class AttendancePanel extends BasePanel {
+    private static final String ALL_DEPARTMENTS = "All Departments";
     private AttendanceService attendanceService;
     private UserService userService;
     private JTable attendanceTable;
-    private DefaultTableModel tableModel;
+    private SnapshotTableModel<RosterRow> tableModel;
     private JSpinner dateSpinner;
+    private JComboBox<String> departmentFilter;
+    // The roster last fetched, which the department filter pages through without reloading
+    private Roster roster;
     private User currentUser;
     private boolean isAdmin;
 
     public AttendancePanel(User currentUser) {
         this.currentUser = currentUser;
         this.isAdmin = currentUser.isAdmin();
-        this.attendanceService = new AttendanceService();
+        this.attendanceService = AttendanceService.getInstance();
         this.userService = UserService.getInstance();
         setupUI();
-        loadAttendance();
+        loadData();
+        // Pick up changes made through the shared service elsewhere
+        listenForChanges(this::attendanceChanged, EntityType.ATTENDANCE, EntityType.USER);
     }
 
-    private void setupUI() {
-        setLayout(new BorderLayout());
-        setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
-
-        // Create top panel with date chooser and buttons
-        JPanel topPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
-        
+    @Override
+    protected void setupUI() {
         // Add date spinner
         SpinnerDateModel dateModel = new SpinnerDateModel();
         dateSpinner = new JSpinner(dateModel);
@@ -49,15 +58,23 @@ public class AttendancePanel extends JPanel {
         topPanel.add(new JLabel("Date:"));
         topPanel.add(dateSpinner);
 
+        departmentFilter = new JComboBox<>(new String[]{ALL_DEPARTMENTS});
+        topPanel.add(new JLabel("Department:"));
+        topPanel.add(departmentFilter);
+
         // Add buttons
         JButton markPresentButton = new JButton("Mark Present");
         JButton markAbsentButton = new JButton("Mark Absent");
+        JButton markAllPresentButton = new JButton("Mark All Present");
+        JButton markAllAbsentButton = new JButton("Mark All Absent");
         JButton unmarkButton = new JButton("Unmark Attendance");
         JButton refreshButton = new JButton("Refresh");
         JButton exportButton = new JButton("Export to CSV");
 
         topPanel.add(markPresentButton);
         topPanel.add(markAbsentButton);
+        topPanel.add(markAllPresentButton);
+        topPanel.add(markAllAbsentButton);
         topPanel.add(unmarkButton);
         topPanel.add(refreshButton);
         if (isAdmin) {
@@ -66,85 +83,131 @@ public class AttendancePanel extends JPanel {
 
         // Create table
         String[] columns = {"Employee", "Full Name", "Department", "Date", "Status", "Notes"};
-        tableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tableModel = new SnapshotTableModel<>(columns, this::columnValue);
         attendanceTable = new JTable(tableModel);
         JScrollPane scrollPane = new JScrollPane(attendanceTable);
 
         // Add components to panel
-        add(topPanel, BorderLayout.NORTH);
-        add(scrollPane, BorderLayout.CENTER);
+        centerPanel.add(scrollPane, BorderLayout.CENTER);
 
         // Add action listeners
-        markPresentButton.addActionListener(e -> markAttendance(true));
-        markAbsentButton.addActionListener(e -> markAttendance(false));
+        markPresentButton.addActionListener(e -> markAttendance(true, attendanceTable.getSelectedRows()));
+        markAbsentButton.addActionListener(e -> markAttendance(false, attendanceTable.getSelectedRows()));
+        markAllPresentButton.addActionListener(e -> markAttendance(true, allRows()));
+        markAllAbsentButton.addActionListener(e -> markAttendance(false, allRows()));
         unmarkButton.addActionListener(e -> unmarkAttendance());
-        refreshButton.addActionListener(e -> loadAttendance());
+        refreshButton.addActionListener(e -> loadData());
         if (isAdmin) {
             exportButton.addActionListener(e -> exportToCSV());
         }
 
         // Add date change listener
-        dateSpinner.addChangeListener(e -> loadAttendance());
+        dateSpinner.addChangeListener(e -> loadData());
+        departmentFilter.addActionListener(e -> showDepartment());
+    }
+
+    /**
+     * One employee on the roster with their record for the date, if any.
+     */
+    private static final class RosterRow {
+        final User user;
+        final LocalDate date;
+        final Attendance record;
+
+        RosterRow(User user, LocalDate date, Attendance record) {
+            this.user = user;
+            this.date = date;
+            this.record = record;
+        }
+    }
+
+    /**
+     * The employees and their records for one date, joined on the username off
+     * the EDT. Rows are only created when the table asks for them, so a large
+     * roster costs one map lookup per row on screen.
+     */
+    private static final class Roster {
+        final LocalDate date;
+        final int userCount;
+        final List<User> employees = new ArrayList<>();
+        // Employees by department, sorted by department name
+        final Map<String, List<User>> byDepartment = new TreeMap<>();
+        final Map<String, Attendance> records;
+
+        Roster(LocalDate date, List<User> users, List<Attendance> records) {
+            this.date = date;
+            this.userCount = users.size();
+            this.records = new HashMap<>(records.size() * 2);
+            for (Attendance record : records) {
+                this.records.put(record.getEmployeeUsername(), record);
+            }
+            for (User user : users) {
+                if (!user.isAdmin()) { // Skip admin users
+                    employees.add(user);
+                    String department = user.getDepartment();
+                    if (department != null && !department.trim().isEmpty()) {
+                        byDepartment.computeIfAbsent(department, k -> new ArrayList<>()).add(user);
+                    }
+                }
+            }
+        }
+
+        List<RosterRow> rows(String department) {
+            List<User> shown = ALL_DEPARTMENTS.equals(department) ? employees
+                : byDepartment.getOrDefault(department, Collections.emptyList());
+            return new AbstractList<RosterRow>() {
+                @Override
+                public RosterRow get(int index) {
+                    User user = shown.get(index);
+                    // Unmarked employees get a row without a record
+                    return new RosterRow(user, date, records.get(user.getUsername()));
+                }
+
+                @Override
+                public int size() {
+                    return shown.size();
+                }
+            };
+        }
     }
 
-    private void loadAttendance() {
-        tableModel.setRowCount(0);
+    @Override
+    protected void loadData() {
         Date selectedDate = (Date) dateSpinner.getValue();
         LocalDate localDate = selectedDate.toInstant()
             .atZone(java.time.ZoneId.systemDefault())
             .toLocalDate();
 
-        List<User> allUsers = userService.getAllUsers();
-        List<Attendance> existingRecords = attendanceService.getAttendanceByDate(localDate);
-
-        System.out.println("Loading attendance for date: " + localDate);
-        System.out.println("Number of existing records: " + existingRecords.size());
-
-        for (User user : allUsers) {
-            if (!user.isAdmin()) { // Skip admin users
-                Attendance existingRecord = existingRecords.stream()
-                    .filter(record -> record.getEmployeeUsername().equals(user.getUsername()))
-                    .findFirst()
-                    .orElse(null);
-
-                if (existingRecord != null) {
-                    System.out.println("Found record for " + user.getUsername() + ": " + existingRecord.isPresent());
-                    addAttendanceToTable(existingRecord, user);
-                } else {
-                    System.out.println("No record found for " + user.getUsername() + ", adding as Not Marked.");
-                    // Add empty row for unmarked attendance
-                    tableModel.addRow(new Object[]{
-                        user.getUsername(),
-                        user.getFullName(),
-                        user.getDepartment(),
-                        localDate.format(DateTimeFormatter.ISO_LOCAL_DATE),
-                        "Not Marked",
-                        ""
-                    });
-                }
-            }
-        }
+        loadAsync(() -> new Roster(localDate, userService.getAllUsers(), attendanceService.getAttendanceByDate(localDate)),
+            this::showRoster);
+    }
 
-        // If no records found, show a message
-        if (tableModel.getRowCount() == 0 && !allUsers.isEmpty()) {
-            // Check if there are actual non-admin users before showing message
-            boolean hasNonAdminUsers = allUsers.stream().anyMatch(user -> !user.isAdmin());
-            if (hasNonAdminUsers) {
-                 JOptionPane.showMessageDialog(this,
-                    "No attendance records found for this date. All employees are initially unmarked.",
-                    "No Records",
-                    JOptionPane.INFORMATION_MESSAGE);
+    // Only changes to the date on show, or to the employees, touch the roster
+    private void attendanceChanged(List<DataChangeEvent<?>> events) {
+        LocalDate shown = ((Date) dateSpinner.getValue()).toInstant()
+            .atZone(java.time.ZoneId.systemDefault())
+            .toLocalDate();
+        for (DataChangeEvent<?> event : events) {
+            if (event.isReload() || event.getEntityType() == EntityType.USER
+                    || event.as(Attendance.class).getValue().getDate().equals(shown)) {
+                loadData();
+                return;
             }
-           
         }
+    }
+
+    @Override
+    protected void refreshData() {
+        loadData();
+    }
+
+    private void showRoster(Roster roster) {
+        this.roster = roster;
+        updateDepartments(roster.byDepartment.keySet());
+        showDepartment();
 
          // If no employees found at all
-         if (allUsers.isEmpty()) {
+         if (roster.userCount == 0) {
               JOptionPane.showMessageDialog(this,
                  "No employees found in the system. Please add employees first.",
                  "No Employees",
@@ -152,20 +215,57 @@ public class AttendancePanel extends JPanel {
          }
     }
 
-    private void addAttendanceToTable(Attendance attendance, User user) {
-        tableModel.addRow(new Object[]{
-            attendance.getEmployeeUsername(),
-            user.getFullName(),
-            user.getDepartment(),
-            attendance.getDate().format(DateTimeFormatter.ISO_LOCAL_DATE),
-            attendance.isPresent() ? "Present" : "Absent",
-            attendance.getNotes()
-        });
+    // Keeps the selection when the department is still there
+    private void updateDepartments(Set<String> departments) {
+        List<String> items = new ArrayList<>();
+        items.add(ALL_DEPARTMENTS);
+        items.addAll(departments);
+        DefaultComboBoxModel<String> model = (DefaultComboBoxModel<String>) departmentFilter.getModel();
+        if (items.size() == model.getSize()) {
+            boolean same = true;
+            for (int i = 0; i < items.size() && same; i++) {
+                same = items.get(i).equals(model.getElementAt(i));
+            }
+            if (same) {
+                return;
+            }
+        }
+        Object selected = departmentFilter.getSelectedItem();
+        departmentFilter.setModel(new DefaultComboBoxModel<>(items.toArray(new String[0])));
+        departmentFilter.setSelectedItem(items.contains(selected) ? selected : ALL_DEPARTMENTS);
     }
 
-    private void markAttendance(boolean isPresent) {
-        int selectedRow = attendanceTable.getSelectedRow();
-        if (selectedRow == -1) {
+    private void showDepartment() {
+        if (roster != null) {
+            tableModel.setRows(roster.rows((String) departmentFilter.getSelectedItem()));
+        }
+    }
+
+    private Object columnValue(RosterRow row, int column) {
+        switch (column) {
+            case 0: return row.user.getUsername();
+            case 1: return row.user.getFullName();
+            case 2: return row.user.getDepartment();
+            case 3: return row.date.format(DateTimeFormatter.ISO_LOCAL_DATE);
+            case 4: return row.record == null ? "Not Marked" : row.record.isPresent() ? "Present" : "Absent";
+            default: return row.record == null ? "" : row.record.getNotes();
+        }
+    }
+
+    private int[] allRows() {
+        int[] rows = new int[tableModel.getRowCount()];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = i;
+        }
+        return rows;
+    }
+
+    /**
+     * Marks every given roster row present or absent for the selected date with
+     * a single write.
+     */
+    private void markAttendance(boolean isPresent, int[] rows) {
+        if (rows.length == 0) {
             JOptionPane.showMessageDialog(this,
                 "Please select an employee to mark attendance.",
                 "No Selection",
@@ -173,7 +273,6 @@ public class AttendancePanel extends JPanel {
             return;
         }
 
-        String employeeUsername = (String) tableModel.getValueAt(selectedRow, 0);
         Date selectedDate = (Date) dateSpinner.getValue();
         LocalDate localDate = selectedDate.toInstant()
             .atZone(java.time.ZoneId.systemDefault())
@@ -183,7 +282,8 @@ public class AttendancePanel extends JPanel {
         String notes = "";
         if (!isPresent) {
             notes = JOptionPane.showInputDialog(this,
-                "Please provide a reason for absence:",
+                rows.length == 1 ? "Please provide a reason for absence:"
+                    : "Please provide a reason for absence (applies to all " + rows.length + " employees):",
                 "Absence Reason",
                 JOptionPane.QUESTION_MESSAGE);
             
@@ -193,23 +293,26 @@ public class AttendancePanel extends JPanel {
         }
 
         try {
-            // Create and save attendance record
-            Attendance attendance = new Attendance(
-                employeeUsername,
-                localDate,
-                isPresent,
-                notes
-            );
-            attendanceService.markAttendance(attendance);
+            // Create and save all attendance records at once
+            List<Attendance> records = new ArrayList<>(rows.length);
+            for (int row : rows) {
+                String employeeUsername = (String) tableModel.getValueAt(row, 0);
+                records.add(new Attendance(
+                    employeeUsername,
+                    localDate,
+                    isPresent,
+                    notes
+                ));
+            }
+            // The change listener refreshes the table
+            attendanceService.markAttendanceBatch(records);
             
-            // Force refresh the table
+            // Show confirmation once the refresh has been queued
+            String message = records.size() == 1 ? "Attendance marked successfully!"
+                : "Attendance marked for " + records.size() + " employees!";
             SwingUtilities.invokeLater(() -> {
-                tableModel.setRowCount(0);
-                loadAttendance();
-                
-                // Show confirmation
                 JOptionPane.showMessageDialog(this,
-                    "Attendance marked successfully!",
+                    message,
                     "Success",
                     JOptionPane.INFORMATION_MESSAGE);
             });
@@ -254,7 +357,6 @@ public class AttendancePanel extends JPanel {
         
         if (confirm == JOptionPane.YES_OPTION) {
             attendanceService.unmarkAttendance(employeeUsername, localDate);
-            loadAttendance();
             JOptionPane.showMessageDialog(this,
                 "Attendance unmarked successfully!",
                 "Success",
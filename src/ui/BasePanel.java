@@ -1,29 +1,133 @@
 package src.ui;
 
+import src.services.DataChangeEvent.EntityType;
+import src.services.EventBus;
 import javax.swing.*;
 import java.awt.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 public abstract class BasePanel extends JPanel {
+    // Shared by all panels so service I/O never runs on the event dispatch thread
+    private static final ExecutorService LOADER = Executors.newFixedThreadPool(2, new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "panel-loader-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
     protected JPanel topPanel;
     protected JPanel centerPanel;
     protected JPanel bottomPanel;
-    
+    private JLabel loadingLabel;
+    private SwingWorker<?, ?> currentLoad;
+    private EventBus.Listener changeListener;
+    private EntityType[] changeTypes;
+
     public BasePanel() {
         setLayout(new BorderLayout());
         setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
         initializePanels();
     }
-    
+
     private void initializePanels() {
         topPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
         centerPanel = new JPanel(new BorderLayout());
         bottomPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
-        
+
+        loadingLabel = new JLabel("Loading...");
+        loadingLabel.setVisible(false);
+        bottomPanel.add(loadingLabel);
+
         add(topPanel, BorderLayout.NORTH);
         add(centerPanel, BorderLayout.CENTER);
         add(bottomPanel, BorderLayout.SOUTH);
     }
-    
+
+    /**
+     * Runs {@code fetch} on a background thread and hands its result to
+     * {@code publish} on the event dispatch thread. Starting a new load
+     * supersedes the one in flight: the older result is dropped, so a slow
+     * response can never overwrite a newer one. Must be called on the EDT.
+     */
+    protected <T> void loadAsync(Callable<T> fetch, Consumer<T> publish) {
+        if (currentLoad != null) {
+            currentLoad.cancel(false);
+        }
+        SwingWorker<T, Void> load = new SwingWorker<T, Void>() {
+            @Override
+            protected T doInBackground() throws Exception {
+                return fetch.call();
+            }
+
+            @Override
+            protected void done() {
+                if (currentLoad != this) {
+                    return; // Superseded by a newer load
+                }
+                currentLoad = null;
+                setLoading(false);
+                if (isCancelled()) {
+                    return;
+                }
+                try {
+                    publish.accept(get());
+                } catch (InterruptedException | ExecutionException e) {
+                    e.printStackTrace();
+                    JOptionPane.showMessageDialog(BasePanel.this,
+                        "Error loading data: " + (e.getCause() != null ? e.getCause().getMessage() : e.getMessage()),
+                        "Error",
+                        JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        };
+        currentLoad = load;
+        setLoading(true);
+        LOADER.execute(load);
+    }
+
+    /**
+     * Hands changes to these entity types to {@code listener} while the panel
+     * is part of a window, so panels of a closed dashboard stop listening.
+     */
+    protected void listenForChanges(EventBus.Listener listener, EntityType... entityTypes) {
+        changeListener = listener;
+        changeTypes = entityTypes;
+        if (isDisplayable()) {
+            EventBus.getInstance().subscribe(listener, entityTypes);
+        }
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        if (changeListener != null) {
+            EventBus.getInstance().subscribe(changeListener, changeTypes);
+        }
+    }
+
+    @Override
+    public void removeNotify() {
+        if (changeListener != null) {
+            EventBus.getInstance().unsubscribe(changeListener);
+        }
+        super.removeNotify();
+    }
+
+    private void setLoading(boolean loading) {
+        loadingLabel.setVisible(loading);
+        setCursor(loading ? Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR) : null);
+    }
+
     protected abstract void setupUI();
     protected abstract void loadData();
     protected abstract void refreshData();
@@ -3,11 +3,19 @@ package src.ui;
 import src.models.User;
 import src.services.ProductService;
 import src.services.AttendanceService;
+import src.services.DataChangeEvent.EntityType;
+import src.services.EventBus;
+import src.services.TaskService;
 import src.services.UserService;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
 
 public class DashboardFrame extends JFrame {
     private User currentUser;
@@ -17,14 +25,21 @@ public class DashboardFrame extends JFrame {
     private ProductService productService;
     private AttendanceService attendanceService;
     private UserService userService;
+    private TaskService taskService;
     private JPanel welcomePanel;
-    private Timer statsTimer;
+    // Value label of each stat card, by card title
+    private final Map<String, JLabel> statValues = new LinkedHashMap<>();
+    private final EventBus.Listener statsListener = events -> updateStatistics();
+    private Timer midnightTimer;
+    // Bumped for every attendance count started, so an older count finishing late is dropped
+    private int attendanceUpdate;
 
     public DashboardFrame(User user) {
         this.currentUser = user;
         this.productService = ProductService.getInstance();
-        this.attendanceService = new AttendanceService();
+        this.attendanceService = AttendanceService.getInstance();
         this.userService = UserService.getInstance();
+        this.taskService = TaskService.getInstance();
         setupUI();
     }
 
@@ -74,9 +89,10 @@ public class DashboardFrame extends JFrame {
         // Show welcome panel by default
         cardLayout.show(mainPanel, "WELCOME");
         
-        // Update statistics periodically
-        statsTimer = new Timer(5000, e -> updateStatistics());
-        statsTimer.start();
+        // Statistics follow the data: the services say when it changes
+        updateStatistics();
+        EventBus.getInstance().subscribe(statsListener, EntityType.PRODUCT, EntityType.TASK, EntityType.ATTENDANCE);
+        scheduleMidnightRefresh();
     }
 
     private JPanel createSidebar() {
@@ -199,41 +215,68 @@ public class DashboardFrame extends JFrame {
             JOptionPane.YES_NO_OPTION);
             
         if (choice == JOptionPane.YES_OPTION) {
-            statsTimer.stop();
+            EventBus.getInstance().unsubscribe(statsListener);
+            midnightTimer.stop();
             LoginFrame loginFrame = new LoginFrame();
             loginFrame.setVisible(true);
             this.dispose();
         }
     }
 
+    // Due dates and attendance are per day, so some counts move at midnight
+    // without any data changing
+    private void scheduleMidnightRefresh() {
+        LocalDateTime now = LocalDateTime.now();
+        long delay = Duration.between(now, now.toLocalDate().plusDays(1).atStartOfDay()).toMillis() + 1000;
+        midnightTimer = new Timer((int) delay, e -> {
+            updateStatistics();
+            scheduleMidnightRefresh();
+        });
+        midnightTimer.setRepeats(false);
+        midnightTimer.start();
+    }
+
+    // Reads the services' running counts and touches only the cards whose value changed
     private void updateStatistics() {
-        if (welcomePanel != null) {
-            welcomePanel.removeAll();
-            
-            // Welcome message
-            JLabel welcomeLabel = new JLabel("Welcome, " + currentUser.getFullName());
-            welcomeLabel.setFont(new Font("Arial", Font.BOLD, 24));
-            welcomePanel.add(welcomeLabel, BorderLayout.NORTH);
-
-            // Quick stats panel
-            JPanel statsPanel = new JPanel(new GridLayout(2, 2, 10, 10));
-            statsPanel.setBorder(BorderFactory.createEmptyBorder(20, 0, 0, 0));
-
-            // Get real statistics
-            int totalProducts = productService.getAll().size();
-            int lowStockItems = productService.getLowStockProducts().size();
-            int todayAttendance = attendanceService.getAttendanceByDate(LocalDate.now()).size();
-            int pendingTasks = 0; // TODO: Implement task system
-
-            // Add stat cards with real data
-            statsPanel.add(createStatCard("Total Products", String.valueOf(totalProducts)));
-            statsPanel.add(createStatCard("Low Stock Items", String.valueOf(lowStockItems)));
-            statsPanel.add(createStatCard("Today's Attendance", String.valueOf(todayAttendance)));
-            statsPanel.add(createStatCard("Pending Tasks", String.valueOf(pendingTasks)));
-
-            welcomePanel.add(statsPanel, BorderLayout.CENTER);
-            welcomePanel.revalidate();
-            welcomePanel.repaint();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate today = now.toLocalDate();
+        setStatValue("Total Products", productService.getCount());
+        setStatValue("Low Stock Items", productService.getLowStockCount());
+        setStatValue("Pending Tasks", taskService.getPendingTasksCount());
+        setStatValue("Overdue Tasks", taskService.getOverdueCount(now));
+        setStatValue("Due in 7 Days", taskService.countDueBetween(
+            today.atStartOfDay(), today.plusDays(7).atStartOfDay().minusNanos(1)));
+        updateAttendance(today);
+    }
+
+    // A stale rollup is recounted from the month's file, so today's attendance is read off the EDT
+    private void updateAttendance(LocalDate today) {
+        int update = ++attendanceUpdate;
+        new SwingWorker<Integer, Void>() {
+            @Override
+            protected Integer doInBackground() {
+                return attendanceService.getDailyAttendance(today, today).get(0).getTotal();
+            }
+
+            @Override
+            protected void done() {
+                if (update != attendanceUpdate) {
+                    return;
+                }
+                try {
+                    setStatValue("Today's Attendance", get());
+                } catch (InterruptedException | ExecutionException e) {
+                    e.printStackTrace();
+                }
+            }
+        }.execute();
+    }
+
+    private void setStatValue(String title, int value) {
+        JLabel label = statValues.get(title);
+        String text = String.valueOf(value);
+        if (!text.equals(label.getText())) {
+            label.setText(text);
         }
     }
 
@@ -247,7 +290,7 @@ public class DashboardFrame extends JFrame {
         panel.add(welcomeLabel, BorderLayout.NORTH);
 
         // Quick stats panel
-        JPanel statsPanel = new JPanel(new GridLayout(2, 2, 10, 10));
+        JPanel statsPanel = new JPanel(new GridLayout(3, 2, 10, 10));
         statsPanel.setBorder(BorderFactory.createEmptyBorder(20, 0, 0, 0));
 
         // Add stat cards
@@ -255,6 +298,8 @@ public class DashboardFrame extends JFrame {
         statsPanel.add(createStatCard("Low Stock Items", "0"));
         statsPanel.add(createStatCard("Today's Attendance", "0"));
         statsPanel.add(createStatCard("Pending Tasks", "0"));
+        statsPanel.add(createStatCard("Overdue Tasks", "0"));
+        statsPanel.add(createStatCard("Due in 7 Days", "0"));
 
         panel.add(statsPanel, BorderLayout.CENTER);
 
@@ -276,6 +321,7 @@ public class DashboardFrame extends JFrame {
         JLabel valueLabel = new JLabel(value);
         valueLabel.setFont(new Font("Arial", Font.BOLD, 24));
         valueLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+        statValues.put(title, valueLabel);
 
         card.add(titleLabel);
         card.add(Box.createVerticalStrut(10));
@@ -1,30 +1,27 @@
 package src.ui;
 
 import src.models.User;
+import src.services.DataChangeEvent.EntityType;
 import src.services.UserService;
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.*;
-import java.util.List;
 
-public class EmployeePanel extends JPanel {
+public class EmployeePanel extends BasePanel {
     private UserService userService;
     private JTable employeeTable;
-    private DefaultTableModel tableModel;
+    private SnapshotTableModel<User> tableModel;
 
     public EmployeePanel() {
         this.userService = UserService.getInstance();
         setupUI();
-        loadUsers();
+        loadData();
+        listenForChanges(events -> loadData(), EntityType.USER);
     }
 
-    private void setupUI() {
-        setLayout(new BorderLayout());
-        setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
-
-        // Create top panel with buttons
-        JPanel topPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+    @Override
+    protected void setupUI() {
+        // Add buttons to the top panel
         JButton addButton = new JButton("Add Employee");
         JButton refreshButton = new JButton("Refresh");
         topPanel.add(addButton);
@@ -32,22 +29,16 @@ public class EmployeePanel extends JPanel {
 
         // Create table
         String[] columns = {"Username", "Full Name", "Email", "Department", "Position", "Phone", "Role"};
-        tableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tableModel = new SnapshotTableModel<>(columns, this::columnValue);
         employeeTable = new JTable(tableModel);
         JScrollPane scrollPane = new JScrollPane(employeeTable);
 
         // Add components to panel
-        add(topPanel, BorderLayout.NORTH);
-        add(scrollPane, BorderLayout.CENTER);
+        centerPanel.add(scrollPane, BorderLayout.CENTER);
 
         // Add action listeners
         addButton.addActionListener(e -> showAddEmployeeDialog());
-        refreshButton.addActionListener(e -> loadUsers());
+        refreshButton.addActionListener(e -> loadData());
 
         // Add double-click listener for editing
         employeeTable.addMouseListener(new MouseAdapter() {
@@ -62,27 +53,28 @@ public class EmployeePanel extends JPanel {
         });
     }
 
-    private void loadUsers() {
+    @Override
+    protected void loadData() {
         if (tableModel == null) return;
-        
-        tableModel.setRowCount(0);
-        List<User> users = userService.getAllUsers();
-        
-        for (User user : users) {
-            addEmployeeToTable(user);
-        }
+
+        loadAsync(userService::getAllUsers, tableModel::setRows);
     }
 
-    private void addEmployeeToTable(User user) {
-        tableModel.addRow(new Object[]{
-            user.getUsername(),
-            user.getFullName(),
-            user.getEmail(),
-            user.getDepartment(),
-            user.getPosition(),
-            user.getPhoneNumber(),
-            user.isAdmin() ? "Admin" : "Employee"
-        });
+    @Override
+    protected void refreshData() {
+        loadData();
+    }
+
+    private Object columnValue(User user, int column) {
+        switch (column) {
+            case 0: return user.getUsername();
+            case 1: return user.getFullName();
+            case 2: return user.getEmail();
+            case 3: return user.getDepartment();
+            case 4: return user.getPosition();
+            case 5: return user.getPhoneNumber();
+            default: return user.isAdmin() ? "Admin" : "Employee";
+        }
     }
 
     private void showAddEmployeeDialog() {
@@ -143,7 +135,6 @@ public class EmployeePanel extends JPanel {
             );
 
             if (userService.addUser(user)) {
-                loadUsers();
                 JOptionPane.showMessageDialog(this,
                     "Employee added successfully!",
                     "Success",
@@ -159,9 +150,11 @@ public class EmployeePanel extends JPanel {
 
     private void showEditEmployeeDialog(int row) {
         String username = (String) tableModel.getValueAt(row, 0);
-        User user = userService.getUserByUsername(username);
+        User current = userService.getUserByUsername(username);
         
-        if (user == null) return;
+        if (current == null) return;
+        // Other threads read the stored account, so edit a copy and let updateUser() swap it in
+        User user = new User(current);
 
         JTextField fullNameField = new JTextField(user.getFullName());
         JTextField emailField = new JTextField(user.getEmail());
@@ -210,7 +203,6 @@ public class EmployeePanel extends JPanel {
             user.setAdmin(isAdmin);
 
             if (userService.updateUser(user)) {
-                loadUsers();
                 JOptionPane.showMessageDialog(this,
                     "Employee updated successfully!",
                     "Success",
@@ -128,14 +128,16 @@ public class LoginFrame extends JFrame {
         }
 
         // Check for employee login
-        User user = userService.getUserByUsername(username);
-        if (user != null) {
+        User account = userService.getUserByUsername(username);
+        if (account != null) {
+            // Other threads read the stored account, so edit a copy and let updateUser() swap it in
+            User user = new User(account);
             if (user.isLocked()) {
                 JOptionPane.showMessageDialog(this,
                     "Account is locked. Please try again later.",
                     "Account Locked",
                     JOptionPane.WARNING_MESSAGE);
-                logLogin(username, "FAILED_LOCKED");
+                logLogin(user.getUsername(), "FAILED_LOCKED");
                 return;
             }
 
@@ -143,13 +145,13 @@ public class LoginFrame extends JFrame {
                 user.resetLoginAttempts();
                 user.setLastLogin(LocalDateTime.now());
                 userService.updateUser(user);
-                logLogin(username, "SUCCESS");
+                logLogin(user.getUsername(), "SUCCESS");
                 openDashboard(user);
                 return;
             } else {
                 user.incrementLoginAttempts();
                 userService.updateUser(user);
-                logLogin(username, "FAILED_INVALID_PASSWORD");
+                logLogin(user.getUsername(), "FAILED_INVALID_PASSWORD");
             }
         }
 
@@ -200,16 +202,18 @@ public class LoginFrame extends JFrame {
                 return;
             }
 
-            // Find user and verify email
-            User user = userService.getUserByUsername(username);
-            if (user != null && user.getEmail().equals(email)) {
-                user.setPassword(newPassword);
-                userService.updateUser(user);
-                JOptionPane.showMessageDialog(this,
-                    "Password has been reset successfully",
-                    "Success",
-                    JOptionPane.INFORMATION_MESSAGE);
-                return;
+            // The email index ignores case, so match both the username and the email exactly
+            for (User account : userService.getUsersByEmail(email)) {
+                if (account.getUsername().equals(username) && account.getEmail().equals(email)) {
+                    User user = new User(account);
+                    user.setPassword(newPassword);
+                    userService.updateUser(user);
+                    JOptionPane.showMessageDialog(this,
+                        "Password has been reset successfully",
+                        "Success",
+                        JOptionPane.INFORMATION_MESSAGE);
+                    return;
+                }
             }
 
             JOptionPane.showMessageDialog(this,
@@ -277,8 +281,8 @@ public class LoginFrame extends JFrame {
                 return;
             }
 
-            // Check if username already exists
-            if (userService.getUserByUsername(username) != null) {
+            // Check if username already exists, in any case
+            if (userService.isUsernameTaken(username)) {
                 JOptionPane.showMessageDialog(this,
                     "Username already exists",
                     "Sign Up Error",
@@ -1,19 +1,31 @@
 package src.ui;
 
 import src.models.Product;
+import src.services.DataChangeEvent.EntityType;
 import src.services.ProductService;
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import java.awt.*;
 import java.awt.event.*;
 import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
 
 public class ProductPanel extends BasePanel {
+    private static final int SEARCH_RESULT_LIMIT = 500;
+    // How long typing has to pause before the search runs
+    private static final int SEARCH_DELAY_MS = 250;
     private ProductService productService;
     private JTable productTable;
-    private DefaultTableModel tableModel;
+    private SnapshotTableModel<Product> tableModel;
     private JTextField searchField;
     private JComboBox<String> categoryFilter;
+    private Timer searchTimer;
+    // Bumped on the EDT for each search; a queued search that is no longer the latest skips its work
+    private volatile int searchSequence;
+    // The result on show, which a narrower query can search instead of the whole catalog
+    private SearchResult shownResult;
     private boolean isAdmin;
 
     public ProductPanel(boolean isAdmin) {
@@ -21,6 +33,8 @@ public class ProductPanel extends BasePanel {
         this.productService = ProductService.getInstance();
         setupUI();
         loadData();
+        // Products added or edited anywhere show up in the current search
+        listenForChanges(events -> searchProducts(), EntityType.PRODUCT);
     }
 
     @Override
@@ -49,12 +63,7 @@ public class ProductPanel extends BasePanel {
 
         // Create table
         String[] columns = {"ID", "Name", "Description", "Category", "Price", "Quantity", "Min Stock"};
-        tableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tableModel = new SnapshotTableModel<>(columns, this::columnValue);
         productTable = new JTable(tableModel);
         JScrollPane scrollPane = new JScrollPane(productTable);
         centerPanel.add(scrollPane, BorderLayout.CENTER);
@@ -82,12 +91,33 @@ public class ProductPanel extends BasePanel {
 
         // Add category filter listener
         categoryFilter.addActionListener(e -> searchProducts());
+
+        // Typing searches once it pauses; Enter searches right away
+        searchTimer = new Timer(SEARCH_DELAY_MS, e -> searchProducts());
+        searchTimer.setRepeats(false);
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                searchTimer.restart();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                searchTimer.restart();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                searchTimer.restart();
+            }
+        });
+        searchField.addActionListener(e -> searchProducts());
     }
 
     @Override
     protected void loadData() {
-        List<Product> products = productService.getAll();
-        updateTable(products);
+        // Reloads keep the current search and category
+        searchProducts();
     }
 
     @Override
@@ -95,36 +125,77 @@ public class ProductPanel extends BasePanel {
         loadData();
     }
 
-    private void updateTable(List<Product> products) {
-        tableModel.setRowCount(0);
-        for (Product product : products) {
-            tableModel.addRow(new Object[]{
-                product.getId(),
-                product.getName(),
-                product.getDescription(),
-                product.getCategory(),
-                product.getPrice(),
-                product.getQuantity(),
-                product.getMinStock()
-            });
+    private void showResult(SearchResult result) {
+        shownResult = result;
+        tableModel.setRows(result.products);
+    }
+
+    private Object columnValue(Product product, int column) {
+        switch (column) {
+            case 0: return product.getId();
+            case 1: return product.getName();
+            case 2: return product.getDescription();
+            case 3: return product.getCategory();
+            case 4: return product.getPrice();
+            case 5: return product.getQuantity();
+            default: return product.getMinStock();
         }
     }
 
     private void searchProducts() {
-        String searchText = searchField.getText().toLowerCase();
+        searchTimer.stop();
+        String query = searchField.getText().trim().toLowerCase(Locale.ROOT);
         String selectedCategory = (String) categoryFilter.getSelectedItem();
-        
-        List<Product> filteredProducts = productService.getAll().stream()
-            .filter(product -> {
-                boolean matchesSearch = product.getName().toLowerCase().contains(searchText) ||
-                                      product.getDescription().toLowerCase().contains(searchText);
-                boolean matchesCategory = selectedCategory.equals("All Categories") || 
-                                       product.getCategory().equals(selectedCategory);
-                return matchesSearch && matchesCategory;
-            })
-            .collect(java.util.stream.Collectors.toList());
-            
-        updateTable(filteredProducts);
+        String category = selectedCategory.equals("All Categories") ? null : selectedCategory;
+        SearchResult previous = shownResult;
+        int sequence = ++searchSequence;
+        // Superseded loads are dropped by loadAsync, so only the latest search reaches the table
+        loadAsync(() -> sequence == searchSequence ? runSearch(query, category, previous) : null, this::showResult);
+    }
+
+    // Runs on a loader thread
+    private SearchResult runSearch(String query, String category, SearchResult previous) {
+        // Read first: a change during the search makes the result look stale, never current
+        long version = productService.getVersion();
+        if (query.isEmpty()) {
+            return new SearchResult(query, category, version,
+                category == null ? productService.getAll() : productService.getByCategory(category), false);
+        }
+        List<Product> found;
+        if (previous != null && previous.narrowsTo(query, category, version)) {
+            found = productService.search(query, category, SEARCH_RESULT_LIMIT, previous.products);
+        } else {
+            found = productService.search(query, category, SEARCH_RESULT_LIMIT);
+        }
+        return new SearchResult(query, category, version, found, found.size() < SEARCH_RESULT_LIMIT);
+    }
+
+    /**
+     * The products shown for a query, and what is needed to tell whether a
+     * later query can be answered from them.
+     */
+    private static final class SearchResult {
+        final String query;
+        final String category;
+        final long version;
+        final List<Product> products;
+        // Holds every match, not just the first SEARCH_RESULT_LIMIT
+        final boolean complete;
+
+        SearchResult(String query, String category, long version, List<Product> products, boolean complete) {
+            this.query = query;
+            this.category = category;
+            this.version = version;
+            this.products = products;
+            this.complete = complete;
+        }
+
+        // Extending the query only lengthens its last term or adds terms, so
+        // every product matching the new query matched this one
+        boolean narrowsTo(String nextQuery, String nextCategory, long currentVersion) {
+            return complete && version == currentVersion && Objects.equals(category, nextCategory)
+                && nextQuery.startsWith(query);
+        }
     }
 
     private void showAddProductDialog() {
@@ -176,7 +247,6 @@ public class ProductPanel extends BasePanel {
                 );
                 
                 if (productService.add(product)) {
-                    loadData();
                     JOptionPane.showMessageDialog(this,
                         "Product added successfully!",
                         "Success",
@@ -203,8 +273,10 @@ public class ProductPanel extends BasePanel {
 
     private void showEditProductDialog(int row) {
         int id = (int) tableModel.getValueAt(row, 0);
-        Product product = productService.getById(id);
-        if (product == null) return;
+        Product current = productService.getById(id);
+        if (current == null) return;
+        // Other threads read the stored product, so edit a copy and let update() swap it in
+        Product product = new Product(current);
 
         JTextField nameField = new JTextField(product.getName());
         JTextField descriptionField = new JTextField(product.getDescription());
@@ -252,7 +324,6 @@ public class ProductPanel extends BasePanel {
                 product.setMinStock(minStock);
                 
                 if (productService.update(product)) {
-                    loadData();
                     JOptionPane.showMessageDialog(this,
                         "Product updated successfully!",
                         "Success",
@@ -288,8 +359,9 @@ public class ProductPanel extends BasePanel {
         }
 
         int id = (int) tableModel.getValueAt(row, 0);
-        Product product = productService.getById(id);
-        if (product == null) return;
+        Product current = productService.getById(id);
+        if (current == null) return;
+        Product product = new Product(current);
 
         String input = JOptionPane.showInputDialog(this,
             "Enter quantity to add:",
@@ -305,7 +377,6 @@ public class ProductPanel extends BasePanel {
 
                 product.setQuantity(product.getQuantity() + quantity);
                 if (productService.update(product)) {
-                    loadData();
                     JOptionPane.showMessageDialog(this,
                         "Stock added successfully!",
                         "Success",
@@ -341,8 +412,9 @@ public class ProductPanel extends BasePanel {
         }
 
         int id = (int) tableModel.getValueAt(row, 0);
-        Product product = productService.getById(id);
-        if (product == null) return;
+        Product current = productService.getById(id);
+        if (current == null) return;
+        Product product = new Product(current);
 
         String input = JOptionPane.showInputDialog(this,
             "Enter quantity to remove:",
@@ -361,7 +433,6 @@ public class ProductPanel extends BasePanel {
 
                 product.setQuantity(product.getQuantity() - quantity);
                 if (productService.update(product)) {
-                    loadData();
                     
                     // Check if stock is below minimum level
                     if (product.getQuantity() <= product.getMinStock()) {
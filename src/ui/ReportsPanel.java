@@ -1,36 +1,51 @@
 package src.ui;
 
 import src.services.ProductService;
+import src.services.ProductStatistics;
 import src.services.AttendanceService;
+import src.services.DailyAttendance;
+import src.services.DataChangeEvent;
+import src.services.DataChangeEvent.EntityType;
+import src.services.EmployeeAttendance;
+import src.services.EventBus;
+import src.services.UserService;
+import src.models.User;
 import src.models.Product;
-import src.models.Attendance;
 
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
+import java.awt.event.HierarchyEvent;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartPanel;
 import org.jfree.chart.JFreeChart;
 import org.jfree.data.category.DefaultCategoryDataset;
 import org.jfree.data.general.DefaultPieDataset;
 
+/**
+ * The report tabs. A tab builds its components the first time it is shown,
+ * and Refresh only recomputes the tab on screen; the others are marked stale
+ * and catch up when they are next selected. Changes published on the
+ * {@link EventBus} mark the tabs built from that data stale in the same way.
+ * Tables and charts are created once and refilled in place.
+ */
 public class ReportsPanel extends JPanel {
     private ProductService productService;
     private AttendanceService attendanceService;
     private JTabbedPane tabbedPane;
-    private JPanel productStatsPanel;
-    private JPanel attendanceStatsPanel;
-    private JPanel stockAlertsPanel;
-    private JPanel productGraphsPanel;
+    private List<ReportTab> tabs = new ArrayList<>();
     private JButton refreshButton;
+    private final EventBus.Listener changeListener = this::dataChanged;
 
     public ReportsPanel() {
         this.productService = ProductService.getInstance();
-        this.attendanceService = new AttendanceService();
+        this.attendanceService = AttendanceService.getInstance();
         setupUI();
     }
 
@@ -38,20 +53,24 @@ public class ReportsPanel extends JPanel {
         setLayout(new BorderLayout());
         setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
 
-        // Create tabbed pane
+        // Create tabbed pane; each tab starts out as an empty container
         tabbedPane = new JTabbedPane();
-        
-        // Create panels
-        productStatsPanel = createProductStatsPanel();
-        attendanceStatsPanel = createAttendanceStatsPanel();
-        stockAlertsPanel = createStockAlertsPanel();
-        productGraphsPanel = createProductGraphsPanel();
-
-        // Add panels to tabbed pane
-        tabbedPane.addTab("Product Statistics", productStatsPanel);
-        tabbedPane.addTab("Attendance Statistics", attendanceStatsPanel);
-        tabbedPane.addTab("Stock Alerts", stockAlertsPanel);
-        tabbedPane.addTab("Product Graphs", productGraphsPanel);
+        tabs.add(new ProductStatsTab());
+        tabs.add(new AttendanceStatsTab());
+        tabs.add(new EmployeeAttendanceTab());
+        tabs.add(new StockAlertsTab());
+        tabs.add(new ProductGraphsTab());
+        for (ReportTab tab : tabs) {
+            tabbedPane.addTab(tab.title, tab.container);
+        }
+        tabbedPane.addChangeListener(e -> showSelectedTab());
+
+        // The panel is created with the dashboard, long before anyone opens it
+        addHierarchyListener(e -> {
+            if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0 && isShowing()) {
+                showSelectedTab();
+            }
+        });
 
         // Add refresh button
         refreshButton = new JButton("Refresh");
@@ -62,207 +81,299 @@ public class ReportsPanel extends JPanel {
         add(refreshButton, BorderLayout.SOUTH);
     }
 
-    private JPanel createProductStatsPanel() {
-        JPanel panel = new JPanel(new BorderLayout());
-        
-        // Create table model
-        String[] columns = {"Category", "Count", "Total Value", "Average Price"};
-        DefaultTableModel model = new DefaultTableModel(columns, 0);
-        JTable table = new JTable(model);
-
-        // Get data
-        Map<String, Long> categoryCount = productService.getAll().stream()
-            .collect(Collectors.groupingBy(Product::getCategory, Collectors.counting()));
-
-        Map<String, Double> categoryValue = productService.getAll().stream()
-            .collect(Collectors.groupingBy(
-                Product::getCategory,
-                Collectors.summingDouble(p -> p.getPrice() * p.getQuantity())
-            ));
-
-        Map<String, Double> categoryAvgPrice = productService.getAll().stream()
-            .collect(Collectors.groupingBy(
-                Product::getCategory,
-                Collectors.averagingDouble(Product::getPrice)
-            ));
-
-        // Add data to table
-        for (String category : categoryCount.keySet()) {
-            model.addRow(new Object[]{
-                category,
-                categoryCount.get(category),
-                String.format("$%.2f", categoryValue.get(category)),
-                String.format("$%.2f", categoryAvgPrice.get(category))
-            });
+    private void showSelectedTab() {
+        int selected = tabbedPane.getSelectedIndex();
+        if (selected >= 0 && isShowing()) {
+            tabs.get(selected).show();
         }
+    }
 
-        panel.add(new JScrollPane(table), BorderLayout.CENTER);
-        return panel;
+    private void refreshAllPanels() {
+        for (ReportTab tab : tabs) {
+            tab.stale = true;
+        }
+        showSelectedTab();
     }
 
-    private JPanel createStockAlertsPanel() {
-        JPanel panel = new JPanel(new BorderLayout());
-        
-        // Create table model
-        String[] columns = {"Product", "Category", "Current Stock", "Minimum Stock", "Status"};
-        DefaultTableModel model = new DefaultTableModel(columns, 0);
-        JTable table = new JTable(model);
-
-        // Get low stock products
-        List<Product> lowStockProducts = productService.getLowStockProducts();
-
-        // Add data to table
-        for (Product product : lowStockProducts) {
-            String status = product.getQuantity() == 0 ? "Out of Stock" : "Low Stock";
-            model.addRow(new Object[]{
-                product.getName(),
-                product.getCategory(),
-                product.getQuantity(),
-                product.getMinStock(),
-                status
-            });
+    private void dataChanged(List<DataChangeEvent<?>> events) {
+        EnumSet<EntityType> changed = EnumSet.noneOf(EntityType.class);
+        for (DataChangeEvent<?> event : events) {
+            changed.add(event.getEntityType());
+        }
+        for (ReportTab tab : tabs) {
+            if (changed.contains(tab.source)) {
+                tab.stale = true;
+            }
         }
+        showSelectedTab();
+    }
+
+    // Listens only while the panel is part of a window
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        EventBus.getInstance().subscribe(changeListener, EntityType.PRODUCT, EntityType.ATTENDANCE);
+    }
 
-        panel.add(new JScrollPane(table), BorderLayout.CENTER);
-        return panel;
+    @Override
+    public void removeNotify() {
+        EventBus.getInstance().unsubscribe(changeListener);
+        super.removeNotify();
     }
 
-    private JPanel createProductGraphsPanel() {
-        JPanel panel = new JPanel(new GridLayout(2, 2, 10, 10));
-
-        // Category Distribution Pie Chart
-        DefaultPieDataset categoryDataset = new DefaultPieDataset();
-        productService.getAll().stream()
-            .collect(Collectors.groupingBy(Product::getCategory, Collectors.counting()))
-            .forEach(categoryDataset::setValue);
-
-        JFreeChart categoryChart = ChartFactory.createPieChart(
-            "Product Categories",
-            categoryDataset,
-            true,
-            true,
-            false
-        );
-
-        // Price Range Distribution Bar Chart
-        DefaultCategoryDataset priceDataset = new DefaultCategoryDataset();
-        Map<String, Long> priceRanges = productService.getAll().stream()
-            .collect(Collectors.groupingBy(
-                p -> {
-                    double price = p.getPrice();
-                    if (price < 10) return "Under $10";
-                    if (price < 50) return "$10-$50";
-                    if (price < 100) return "$50-$100";
-                    return "Over $100";
-                },
-                Collectors.counting()
-            ));
-
-        priceRanges.forEach((range, count) -> 
-            priceDataset.addValue(count, "Products", range));
-
-        JFreeChart priceChart = ChartFactory.createBarChart(
-            "Price Range Distribution",
-            "Price Range",
-            "Number of Products",
-            priceDataset
-        );
-
-        // Stock Level Distribution Bar Chart
-        DefaultCategoryDataset stockDataset = new DefaultCategoryDataset();
-        Map<String, Long> stockLevels = productService.getAll().stream()
-            .collect(Collectors.groupingBy(
-                p -> {
-                    int quantity = p.getQuantity();
-                    if (quantity == 0) return "Out of Stock";
-                    if (quantity <= p.getMinStock()) return "Low Stock";
-                    return "In Stock";
-                },
-                Collectors.counting()
-            ));
-
-        stockLevels.forEach((level, count) -> 
-            stockDataset.addValue(count, "Products", level));
-
-        JFreeChart stockChart = ChartFactory.createBarChart(
-            "Stock Level Distribution",
-            "Stock Level",
-            "Number of Products",
-            stockDataset
-        );
-
-        // Total Value by Category Pie Chart
-        DefaultPieDataset valueDataset = new DefaultPieDataset();
-        productService.getAll().stream()
-            .collect(Collectors.groupingBy(
-                Product::getCategory,
-                Collectors.summingDouble(p -> p.getPrice() * p.getQuantity())
-            ))
-            .forEach(valueDataset::setValue);
-
-        JFreeChart valueChart = ChartFactory.createPieChart(
-            "Total Value by Category",
-            valueDataset,
-            true,
-            true,
-            false
-        );
-
-        // Add charts to panel
-        panel.add(new ChartPanel(categoryChart));
-        panel.add(new ChartPanel(priceChart));
-        panel.add(new ChartPanel(stockChart));
-        panel.add(new ChartPanel(valueChart));
-
-        return panel;
+    /**
+     * One report tab. {@link #build()} creates its components once and
+     * {@link #update()} fills them with current data.
+     */
+    private abstract static class ReportTab {
+        final String title;
+        // The data the tab is computed from
+        final EntityType source;
+        final JPanel container = new JPanel(new BorderLayout());
+        private boolean built;
+        boolean stale = true;
+
+        ReportTab(String title, EntityType source) {
+            this.title = title;
+            this.source = source;
+        }
+
+        void show() {
+            if (!built) {
+                build();
+                built = true;
+                container.revalidate();
+            }
+            if (stale) {
+                update();
+                stale = false;
+            }
+        }
+
+        abstract void build();
+
+        abstract void update();
+    }
+
+    private class ProductStatsTab extends ReportTab {
+        private DefaultTableModel model;
+
+        ProductStatsTab() {
+            super("Product Statistics", EntityType.PRODUCT);
+        }
+
+        @Override
+        void build() {
+            String[] columns = {"Category", "Count", "Total Value", "Average Price"};
+            model = new DefaultTableModel(columns, 0);
+            container.add(new JScrollPane(new JTable(model)), BorderLayout.CENTER);
+        }
+
+        @Override
+        void update() {
+            ProductStatistics statistics = productService.getStatistics();
+
+            model.setRowCount(0);
+            for (Map.Entry<String, ProductStatistics.CategoryStatistics> entry : statistics.getByCategory().entrySet()) {
+                ProductStatistics.CategoryStatistics category = entry.getValue();
+                model.addRow(new Object[]{
+                    entry.getKey(),
+                    category.getCount(),
+                    String.format("$%.2f", category.getTotalValue()),
+                    String.format("$%.2f", category.getAveragePrice())
+                });
+            }
+        }
+    }
+
+    private class StockAlertsTab extends ReportTab {
+        private DefaultTableModel model;
+
+        StockAlertsTab() {
+            super("Stock Alerts", EntityType.PRODUCT);
+        }
+
+        @Override
+        void build() {
+            String[] columns = {"Product", "Category", "Current Stock", "Minimum Stock", "Status"};
+            model = new DefaultTableModel(columns, 0);
+            container.add(new JScrollPane(new JTable(model)), BorderLayout.CENTER);
+        }
+
+        @Override
+        void update() {
+            List<Product> lowStockProducts = productService.getLowStockProducts();
+
+            model.setRowCount(0);
+            for (Product product : lowStockProducts) {
+                String status = product.getQuantity() == 0 ? "Out of Stock" : "Low Stock";
+                model.addRow(new Object[]{
+                    product.getName(),
+                    product.getCategory(),
+                    product.getQuantity(),
+                    product.getMinStock(),
+                    status
+                });
+            }
+        }
     }
 
-    private JPanel createAttendanceStatsPanel() {
-        JPanel panel = new JPanel(new BorderLayout());
-        
-        // Create table model
-        String[] columns = {"Date", "Present", "Absent", "Attendance Rate"};
-        DefaultTableModel model = new DefaultTableModel(columns, 0);
-        JTable table = new JTable(model);
-
-        // Get attendance data for the last 7 days
-        LocalDate today = LocalDate.now();
-        for (int i = 0; i < 7; i++) {
-            LocalDate date = today.minusDays(i);
-            List<Attendance> dayAttendance = attendanceService.getAttendanceByDate(date);
-            long presentCount = dayAttendance.stream()
-                .filter(Attendance::isPresent)
-                .count();
-            long absentCount = dayAttendance.size() - presentCount;
-            double attendanceRate = dayAttendance.isEmpty() ? 0 :
-                (double) presentCount / dayAttendance.size() * 100;
-
-            model.addRow(new Object[]{
-                date.toString(),
-                presentCount,
-                absentCount,
-                String.format("%.1f%%", attendanceRate)
+    private class ProductGraphsTab extends ReportTab {
+        private DefaultPieDataset categoryDataset;
+        private DefaultCategoryDataset priceDataset;
+        private DefaultCategoryDataset stockDataset;
+        private DefaultPieDataset valueDataset;
+
+        ProductGraphsTab() {
+            super("Product Graphs", EntityType.PRODUCT);
+        }
+
+        @Override
+        void build() {
+            categoryDataset = new DefaultPieDataset();
+            priceDataset = new DefaultCategoryDataset();
+            stockDataset = new DefaultCategoryDataset();
+            valueDataset = new DefaultPieDataset();
+
+            JFreeChart categoryChart = ChartFactory.createPieChart(
+                "Product Categories",
+                categoryDataset,
+                true,
+                true,
+                false
+            );
+            JFreeChart priceChart = ChartFactory.createBarChart(
+                "Price Range Distribution",
+                "Price Range",
+                "Number of Products",
+                priceDataset
+            );
+            JFreeChart stockChart = ChartFactory.createBarChart(
+                "Stock Level Distribution",
+                "Stock Level",
+                "Number of Products",
+                stockDataset
+            );
+            JFreeChart valueChart = ChartFactory.createPieChart(
+                "Total Value by Category",
+                valueDataset,
+                true,
+                true,
+                false
+            );
+
+            JPanel charts = new JPanel(new GridLayout(2, 2, 10, 10));
+            charts.add(new ChartPanel(categoryChart));
+            charts.add(new ChartPanel(priceChart));
+            charts.add(new ChartPanel(stockChart));
+            charts.add(new ChartPanel(valueChart));
+            container.add(charts, BorderLayout.CENTER);
+        }
+
+        @Override
+        void update() {
+            ProductStatistics statistics = productService.getStatistics();
+            Map<String, Long> categoryCount = new LinkedHashMap<>();
+            Map<String, Double> categoryValue = new LinkedHashMap<>();
+            statistics.getByCategory().forEach((category, figures) -> {
+                categoryCount.put(category, figures.getCount());
+                categoryValue.put(category, figures.getTotalValue());
             });
+
+            fill(categoryDataset, categoryCount);
+            fill(priceDataset, statistics.getPriceRanges());
+            fill(stockDataset, statistics.getStockLevels());
+            fill(valueDataset, categoryValue);
+        }
+    }
+
+    private class AttendanceStatsTab extends ReportTab {
+        private DefaultTableModel model;
+
+        AttendanceStatsTab() {
+            super("Attendance Statistics", EntityType.ATTENDANCE);
+        }
+
+        @Override
+        void build() {
+            String[] columns = {"Date", "Present", "Absent", "Attendance Rate"};
+            model = new DefaultTableModel(columns, 0);
+            container.add(new JScrollPane(new JTable(model)), BorderLayout.CENTER);
         }
 
-        panel.add(new JScrollPane(table), BorderLayout.CENTER);
-        return panel;
+        @Override
+        void update() {
+            model.setRowCount(0);
+
+            // Counts for the last 7 days, newest first
+            LocalDate today = LocalDate.now();
+            List<DailyAttendance> days = attendanceService.getDailyAttendance(today.minusDays(6), today);
+            for (int i = days.size() - 1; i >= 0; i--) {
+                DailyAttendance day = days.get(i);
+                model.addRow(new Object[]{
+                    day.getDate().toString(),
+                    day.getPresent(),
+                    day.getAbsent(),
+                    String.format("%.1f%%", day.getRate())
+                });
+            }
+        }
     }
 
-    private void refreshAllPanels() {
-        // Remove all tabs
-        tabbedPane.removeAll();
-
-        // Recreate panels
-        productStatsPanel = createProductStatsPanel();
-        attendanceStatsPanel = createAttendanceStatsPanel();
-        stockAlertsPanel = createStockAlertsPanel();
-        productGraphsPanel = createProductGraphsPanel();
-
-        // Add panels back to tabbed pane
-        tabbedPane.addTab("Product Statistics", productStatsPanel);
-        tabbedPane.addTab("Attendance Statistics", attendanceStatsPanel);
-        tabbedPane.addTab("Stock Alerts", stockAlertsPanel);
-        tabbedPane.addTab("Product Graphs", productGraphsPanel);
+    private class EmployeeAttendanceTab extends ReportTab {
+        private DefaultTableModel model;
+
+        EmployeeAttendanceTab() {
+            super("Employee Attendance", EntityType.ATTENDANCE);
+        }
+
+        @Override
+        void build() {
+            String[] columns = {"Employee", "Full Name", "Department", "Days Marked", "Present", "Attendance Rate", "Consecutive Absences"};
+            model = new DefaultTableModel(columns, 0);
+            container.add(new JScrollPane(new JTable(model)), BorderLayout.CENTER);
+        }
+
+        @Override
+        void update() {
+            UserService userService = UserService.getInstance();
+            model.setRowCount(0);
+            for (EmployeeAttendance employee : attendanceService.getEmployeeAttendance()) {
+                User user = userService.getUserByUsername(employee.getEmployeeUsername());
+                model.addRow(new Object[]{
+                    employee.getEmployeeUsername(),
+                    user != null ? user.getFullName() : "",
+                    user != null ? user.getDepartment() : "",
+                    employee.getDaysMarked(),
+                    employee.getDaysPresent(),
+                    String.format("%.1f%%", employee.getRate()),
+                    employee.getConsecutiveAbsences()
+                });
+            }
+        }
+    }
+
+    // Sets the dataset to exactly these values, notifying the chart once
+    private static void fill(DefaultPieDataset dataset, Map<String, ? extends Number> values) {
+        dataset.setNotify(false);
+        for (Object key : dataset.getKeys().toArray()) {
+            if (!values.containsKey(key)) {
+                dataset.remove((Comparable<?>) key);
+            }
+        }
+        values.forEach(dataset::setValue);
+        dataset.setNotify(true);
+    }
+
+    // Same for a single-series bar chart
+    private static void fill(DefaultCategoryDataset dataset, Map<String, ? extends Number> values) {
+        dataset.setNotify(false);
+        for (Object key : dataset.getColumnKeys().toArray()) {
+            if (!values.containsKey(key)) {
+                dataset.removeColumn((Comparable<?>) key);
+            }
+        }
+        values.forEach((key, value) -> dataset.setValue(value, "Products", key));
+        dataset.setNotify(true);
     }
 } 
\ No newline at end of file
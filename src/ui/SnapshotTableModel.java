@@ -0,0 +1,60 @@
+package src.ui;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * A read-only table model that shows a list of objects, typically an immutable
+ * snapshot handed out by a service. Cell values are read from the objects on
+ * demand, so the table never keeps a copy of the data, and replacing the list
+ * fires a single change event however many rows it has.
+ */
+public class SnapshotTableModel<T> extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+
+    private final String[] columns;
+    private final BiFunction<T, Integer, Object> cellValue;
+    private List<T> rows = Collections.emptyList();
+
+    /**
+     * @param cellValue returns the value shown for a row object in a column
+     */
+    public SnapshotTableModel(String[] columns, BiFunction<T, Integer, Object> cellValue) {
+        this.columns = columns;
+        this.cellValue = cellValue;
+    }
+
+    /**
+     * Shows {@code rows}. The list is used as-is, so it must not change afterwards.
+     */
+    public void setRows(List<T> rows) {
+        this.rows = rows;
+        fireTableDataChanged();
+    }
+
+    public T getRow(int row) {
+        return rows.get(row);
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columns[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        return cellValue.apply(rows.get(row), column);
+    }
+}
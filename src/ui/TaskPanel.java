@@ -2,25 +2,44 @@ package src.ui;
 
 import src.models.Task;
 import src.models.User;
+import src.services.DataChangeEvent.EntityType;
 import src.services.TaskService;
 import src.services.UserService;
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.TableRowSorter;
 import java.awt.*;
 import java.awt.event.*;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 import java.io.PrintWriter;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.File;
 
-public class TaskPanel extends JPanel {
+public class TaskPanel extends BasePanel {
+    private static final int SEARCH_RESULT_LIMIT = 500;
+    private static final List<String> PRIORITY_ORDER = Arrays.asList("High", "Medium", "Low");
     private JTable taskTable;
-    private DefaultTableModel tableModel;
+    private SnapshotTableModel<Task> tableModel;
+    private TableRowSorter<SnapshotTableModel<Task>> sorter;
+    private TaskRows rows = new TaskRows(Collections.emptyList(), "", 0);
     private JComboBox<String> statusFilter;
     private JComboBox<String> priorityFilter;
+    private JComboBox<String> assigneeFilter;
+    private JComboBox<String> dueFilter;
+    private JTextField searchField;
     private JButton addButton;
     private JButton editButton;
     private JButton deleteButton;
@@ -36,24 +55,38 @@ public class TaskPanel extends JPanel {
         this.taskService = TaskService.getInstance();
         this.userService = UserService.getInstance();
         setupUI();
-        loadTasks();
+        loadData();
+        listenForChanges(events -> loadData(), EntityType.TASK);
     }
 
-    private void setupUI() {
-        setLayout(new BorderLayout());
-        setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
-
-        // Create filter panel
-        JPanel filterPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
-        filterPanel.add(new JLabel("Status:"));
+    @Override
+    protected void setupUI() {
+        // Add filters
+        topPanel.add(new JLabel("Status:"));
         statusFilter = new JComboBox<>(new String[]{"All", "Pending", "In Progress", "Completed"});
-        filterPanel.add(statusFilter);
-        filterPanel.add(new JLabel("Priority:"));
+        topPanel.add(statusFilter);
+        topPanel.add(new JLabel("Priority:"));
         priorityFilter = new JComboBox<>(new String[]{"All", "High", "Medium", "Low"});
-        filterPanel.add(priorityFilter);
-
-        // Create button panel
-        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        topPanel.add(priorityFilter);
+        assigneeFilter = new JComboBox<>();
+        assigneeFilter.addItem("All");
+        if (currentUser.isAdmin()) {
+            for (String username : getUserNames()) {
+                assigneeFilter.addItem(username);
+            }
+            topPanel.add(new JLabel("Assigned To:"));
+            topPanel.add(assigneeFilter);
+        }
+        topPanel.add(new JLabel("Due:"));
+        dueFilter = new JComboBox<>(new String[]{"All", "Overdue", "Due Today", "Due in 7 Days"});
+        topPanel.add(dueFilter);
+        topPanel.add(new JLabel("Search:"));
+        searchField = new JTextField(20);
+        topPanel.add(searchField);
+        JButton searchButton = new JButton("Search");
+        topPanel.add(searchButton);
+
+        // Add buttons
         addButton = new JButton("Add Task");
         editButton = new JButton("Edit Task");
         deleteButton = new JButton("Delete Task");
@@ -61,37 +94,84 @@ public class TaskPanel extends JPanel {
         exportButton = new JButton("Export to CSV");
         refreshButton = new JButton("Refresh");
 
-        buttonPanel.add(refreshButton);
+        bottomPanel.add(refreshButton);
         if (currentUser.isAdmin()) {
-            buttonPanel.add(addButton);
-            buttonPanel.add(editButton);
-            buttonPanel.add(deleteButton);
-            buttonPanel.add(exportButton);
+            bottomPanel.add(addButton);
+            bottomPanel.add(editButton);
+            bottomPanel.add(deleteButton);
+            bottomPanel.add(exportButton);
         }
-        buttonPanel.add(markCompleteButton);
+        bottomPanel.add(markCompleteButton);
 
         // Create table
         String[] columns = {"ID", "Title", "Description", "Assigned To", "Status", "Priority", "Due Date", "Created By", "Created At"};
-        tableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
+        tableModel = new SnapshotTableModel<>(columns, TaskPanel::columnValue);
+        taskTable = new JTable(tableModel);
+        sorter = new TableRowSorter<SnapshotTableModel<Task>>(tableModel) {
+            {
+                // Sorting and filtering read cell values from the keys of the
+                // current load instead of asking the model on every comparison
+                ModelWrapper<SnapshotTableModel<Task>, Integer> model = getModelWrapper();
+                setModelWrapper(new ModelWrapper<SnapshotTableModel<Task>, Integer>() {
+                    @Override
+                    public SnapshotTableModel<Task> getModel() {
+                        return model.getModel();
+                    }
+
+                    @Override
+                    public int getColumnCount() {
+                        return model.getColumnCount();
+                    }
+
+                    @Override
+                    public int getRowCount() {
+                        return model.getRowCount();
+                    }
+
+                    @Override
+                    public Object getValueAt(int row, int column) {
+                        return rows.columnKey(row, column);
+                    }
+
+                    @Override
+                    public Integer getIdentifier(int row) {
+                        return model.getIdentifier(row);
+                    }
+                });
             }
         };
-        taskTable = new JTable(tableModel);
+        // Compare the raw cell values; without a comparator the sorter would
+        // collate their toString() on every comparison
+        Comparator<String> text = String.CASE_INSENSITIVE_ORDER;
+        sorter.setComparator(0, Comparator.<Integer>naturalOrder());
+        sorter.setComparator(1, text);
+        sorter.setComparator(2, text);
+        sorter.setComparator(3, text);
+        sorter.setComparator(4, text);
+        sorter.setComparator(5, Comparator.comparingInt((String priority) -> PRIORITY_ORDER.indexOf(priority)));
+        sorter.setComparator(6, Comparator.<LocalDate>naturalOrder());
+        sorter.setComparator(7, text);
+        sorter.setComparator(8, Comparator.<LocalDateTime>naturalOrder());
+        // Clicking a header sorts by it first and keeps the previous columns as tie-breakers
+        sorter.setMaxSortKeys(3);
+        taskTable.setRowSorter(sorter);
+        taskTable.getColumnModel().getColumn(8).setCellRenderer(new DefaultTableCellRenderer() {
+            @Override
+            protected void setValue(Object value) {
+                super.setValue(formatCell(value));
+            }
+        });
         JScrollPane scrollPane = new JScrollPane(taskTable);
 
         // Add components to panel
-        add(filterPanel, BorderLayout.NORTH);
-        add(scrollPane, BorderLayout.CENTER);
-        add(buttonPanel, BorderLayout.SOUTH);
+        centerPanel.add(scrollPane, BorderLayout.CENTER);
 
         // Add action listeners
         addButton.addActionListener(e -> showAddTaskDialog());
         editButton.addActionListener(e -> {
             int selectedRow = taskTable.getSelectedRow();
             if (selectedRow != -1) {
-                showEditTaskDialog(selectedRow);
+                showEditTaskDialog(taskTable.convertRowIndexToModel(selectedRow));
             } else {
                 JOptionPane.showMessageDialog(this,
                     "Please select a task to edit",
@@ -102,14 +182,13 @@ public class TaskPanel extends JPanel {
         deleteButton.addActionListener(e -> {
             int selectedRow = taskTable.getSelectedRow();
             if (selectedRow != -1) {
-                int taskId = (int) tableModel.getValueAt(selectedRow, 0);
+                int taskId = (int) tableModel.getValueAt(taskTable.convertRowIndexToModel(selectedRow), 0);
                 int confirm = JOptionPane.showConfirmDialog(this,
                     "Are you sure you want to delete this task?",
                     "Confirm Delete",
                     JOptionPane.YES_NO_OPTION);
                 if (confirm == JOptionPane.YES_OPTION) {
                     taskService.deleteTask(taskId);
-                    loadTasks();
                 }
             } else {
                 JOptionPane.showMessageDialog(this,
@@ -121,12 +200,13 @@ public class TaskPanel extends JPanel {
         markCompleteButton.addActionListener(e -> {
             int selectedRow = taskTable.getSelectedRow();
             if (selectedRow != -1) {
-                int taskId = (int) tableModel.getValueAt(selectedRow, 0);
-                Task task = taskService.getTaskById(taskId);
-                if (task != null) {
+                int taskId = (int) tableModel.getValueAt(taskTable.convertRowIndexToModel(selectedRow), 0);
+                Task current = taskService.getTaskById(taskId);
+                if (current != null) {
+                    // Other threads read the stored task, so edit a copy and let updateTask() swap it in
+                    Task task = new Task(current);
                     task.setStatus("Completed");
                     taskService.updateTask(task);
-                    loadTasks();
                     JOptionPane.showMessageDialog(this,
                         "Task marked as complete!",
                         "Success",
@@ -140,46 +220,242 @@ public class TaskPanel extends JPanel {
             }
         });
         exportButton.addActionListener(e -> exportToCSV());
-        refreshButton.addActionListener(e -> loadTasks());
+        refreshButton.addActionListener(e -> loadData());
+
+        // Filters only change which loaded rows are shown, unless search results must be ranked again
+        statusFilter.addActionListener(e -> filtersChanged());
+        priorityFilter.addActionListener(e -> filtersChanged());
+        assigneeFilter.addActionListener(e -> filtersChanged());
+        dueFilter.addActionListener(e -> filtersChanged());
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                applyFilters();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                applyFilters();
+            }
 
-        // Add filter listeners
-        statusFilter.addActionListener(e -> loadTasks());
-        priorityFilter.addActionListener(e -> loadTasks());
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                applyFilters();
+            }
+        });
+        // Enter or Search ranks the tasks by relevance to the search text
+        searchField.addActionListener(e -> searchTasks());
+        searchButton.addActionListener(e -> searchTasks());
+        applyFilters();
     }
 
-    private void loadTasks() {
-        tableModel.setRowCount(0);
-        List<Task> tasks;
-        
-        if (currentUser.isAdmin()) {
-            tasks = taskService.getAllTasks();
-        } else {
-            tasks = taskService.getTasksByAssignedTo(currentUser.getUsername());
+    @Override
+    protected void loadData() {
+        String selectedStatus = (String) statusFilter.getSelectedItem();
+        String selectedPriority = (String) priorityFilter.getSelectedItem();
+        String selectedAssignee = (String) assigneeFilter.getSelectedItem();
+        String selectedDue = (String) dueFilter.getSelectedItem();
+        String searchText = searchField.getText().trim();
+        loadAsync(() -> fetchTasks(selectedStatus, selectedPriority, selectedAssignee, selectedDue, searchText), this::showTasks);
+    }
+
+    private void searchTasks() {
+        // Unsorted, the table keeps the order of the loaded list, which puts the best matches first
+        sorter.setSortKeys(null);
+        loadData();
+    }
+
+    // The ranked matches were picked under the old filters, so a filter change ranks them again
+    private void filtersChanged() {
+        applyFilters();
+        String searchText = searchField.getText().trim().toLowerCase(Locale.ROOT);
+        if (!searchText.isEmpty() && searchText.equals(rows.query)) {
+            loadData();
         }
+    }
+
+    private void showTasks(TaskRows loaded) {
+        // The keys must be in place before the model change makes the sorter filter again
+        rows = loaded;
+        tableModel.setRows(loaded.tasks);
+    }
 
+    /**
+     * Shows the loaded tasks that pass the current filters. The filter reads
+     * the keys computed at load time, so it costs a few array lookups per row.
+     */
+    private void applyFilters() {
         String selectedStatus = (String) statusFilter.getSelectedItem();
         String selectedPriority = (String) priorityFilter.getSelectedItem();
+        String selectedAssignee = (String) assigneeFilter.getSelectedItem();
+        String selectedDue = (String) dueFilter.getSelectedItem();
+        String searchText = searchField.getText().trim().toLowerCase(Locale.ROOT);
+        String[] words = searchText.isEmpty() ? new String[0] : searchText.split("\\s+");
+        LocalDateTime now = LocalDateTime.now();
 
+        sorter.setRowFilter(new RowFilter<SnapshotTableModel<Task>, Integer>() {
+            @Override
+            public boolean include(Entry<? extends SnapshotTableModel<Task>, ? extends Integer> entry) {
+                // Read the field here rather than capture it, so the filter follows reloads
+                TaskRows keys = rows;
+                int row = entry.getIdentifier();
+                if (!selectedStatus.equals("All") && !keys.statuses[row].equals(selectedStatus)) {
+                    return false;
+                }
+                if (!selectedPriority.equals("All") && !keys.priorities[row].equals(selectedPriority)) {
+                    return false;
+                }
+                if (!selectedAssignee.equals("All") && !keys.assignees[row].equals(selectedAssignee)) {
+                    return false;
+                }
+                if (!isDue(keys.dueDates[row], keys.statuses[row], selectedDue, now)) {
+                    return false;
+                }
+                // While the rows are ranked for this very text, show the ranked matches rather than
+                // filter by substrings again, which would hide tasks matching only some of the words
+                if (words.length > 0 && searchText.equals(keys.query)) {
+                    return row < keys.matchCount;
+                }
+                for (String word : words) {
+                    if (!keys.text[row].contains(word)) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        });
+    }
+
+    @Override
+    protected void refreshData() {
+        loadData();
+    }
+
+    // Runs on a loader thread; the filter values are read on the EDT beforehand.
+    // Returns every task the user may see, best search matches first.
+    private TaskRows fetchTasks(String selectedStatus, String selectedPriority, String selectedAssignee, String selectedDue,
+                                String searchText) {
+        List<Task> tasks = currentUser.isAdmin()
+            ? taskService.getAllTasks()
+            : taskService.getTasksByAssignedTo(currentUser.getUsername());
+        if (searchText.isEmpty()) {
+            return new TaskRows(tasks, "", 0);
+        }
+
+        // Ranked under the filters as they are now, so the top matches are ones that will show
+        LocalDateTime now = LocalDateTime.now();
+        List<Task> ranked = taskService.searchTasks(searchText,
+            task -> (currentUser.isAdmin() || task.getAssignedTo().equals(currentUser.getUsername())) &&
+                (selectedStatus.equals("All") || task.getStatus().equals(selectedStatus)) &&
+                (selectedPriority.equals("All") || task.getPriority().equals(selectedPriority)) &&
+                (selectedAssignee.equals("All") || task.getAssignedTo().equals(selectedAssignee)) &&
+                isDue(task.getDueDate(), task.getStatus(), selectedDue, now),
+            SEARCH_RESULT_LIMIT);
+        Set<Integer> rankedIds = new HashSet<>();
+        for (Task task : ranked) {
+            rankedIds.add(task.getId());
+        }
+        List<Task> ordered = new ArrayList<>(tasks.size());
+        ordered.addAll(ranked);
         for (Task task : tasks) {
-            if ((selectedStatus.equals("All") || task.getStatus().equals(selectedStatus)) &&
-                (selectedPriority.equals("All") || task.getPriority().equals(selectedPriority))) {
-                addTaskToTable(task);
+            if (!rankedIds.contains(task.getId())) {
+                ordered.add(task);
             }
         }
+        return new TaskRows(ordered, searchText.toLowerCase(Locale.ROOT), ranked.size());
     }
 
-    private void addTaskToTable(Task task) {
-        tableModel.addRow(new Object[]{
-            task.getId(),
-            task.getTitle(),
-            task.getDescription(),
-            task.getAssignedTo(),
-            task.getStatus(),
-            task.getPriority(),
-            task.getDueDate().format(DateTimeFormatter.ISO_LOCAL_DATE),
-            task.getCreatedBy(),
-            task.getCreatedAt().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)
-        });
+    private boolean isDue(LocalDateTime dueDate, String status, String selectedDue, LocalDateTime now) {
+        if (selectedDue.equals("All")) {
+            return true;
+        }
+        if (dueDate == null) {
+            return false;
+        }
+        if (selectedDue.equals("Overdue")) {
+            return dueDate.isBefore(now) && !status.equals("Completed");
+        }
+        return !dueDate.isBefore(now.toLocalDate().atStartOfDay()) && !dueDate.isAfter(dueWindowEnd(selectedDue, now));
+    }
+
+    private LocalDateTime dueWindowEnd(String selectedDue, LocalDateTime now) {
+        int days = selectedDue.equals("Due Today") ? 1 : 7;
+        return now.toLocalDate().plusDays(days).atStartOfDay().minusNanos(1);
+    }
+
+    private static Object columnValue(Task task, int column) {
+        switch (column) {
+            case 0: return task.getId();
+            case 1: return task.getTitle();
+            case 2: return task.getDescription();
+            case 3: return task.getAssignedTo();
+            case 4: return task.getStatus();
+            case 5: return task.getPriority();
+            case 6: return task.getDueDate().toLocalDate();
+            case 7: return task.getCreatedBy();
+            default: return task.getCreatedAt();
+        }
+    }
+
+    // Dates are kept as values in the model so they sort without being formatted
+    private static Object formatCell(Object value) {
+        if (value instanceof LocalDateTime) {
+            return ((LocalDateTime) value).format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        }
+        return value;
+    }
+
+    /**
+     * The loaded tasks with the values the row filter tests, one array slot
+     * per model row, and the cell values the sorter compares. They are taken
+     * once per load and stay as they were even if a task is edited in place
+     * before the next load.
+     */
+    private static final class TaskRows {
+        final List<Task> tasks;
+        final String[] statuses;
+        final String[] priorities;
+        final String[] assignees;
+        final LocalDateTime[] dueDates;
+        // Lower-cased title and description, for the text filter
+        final String[] text;
+        // Lower-cased search text the tasks were ranked for, and how many of the first rows matched it
+        final String query;
+        final int matchCount;
+        // Cell values by column, filled in the first time the column is sorted
+        private final Object[][] columns = new Object[9][];
+
+        TaskRows(List<Task> tasks, String query, int matchCount) {
+            this.tasks = tasks;
+            this.query = query;
+            this.matchCount = matchCount;
+            int n = tasks.size();
+            statuses = new String[n];
+            priorities = new String[n];
+            assignees = new String[n];
+            dueDates = new LocalDateTime[n];
+            text = new String[n];
+            for (int i = 0; i < n; i++) {
+                Task task = tasks.get(i);
+                statuses[i] = task.getStatus();
+                priorities[i] = task.getPriority();
+                assignees[i] = task.getAssignedTo();
+                dueDates[i] = task.getDueDate();
+                text[i] = (task.getTitle() + "\n" + task.getDescription()).toLowerCase(Locale.ROOT);
+            }
+        }
+
+        Object columnKey(int row, int column) {
+            Object[] values = columns[column];
+            if (values == null) {
+                values = new Object[tasks.size()];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = columnValue(tasks.get(i), column);
+                }
+                columns[column] = values;
+            }
+            return values[row];
+        }
     }
 
     private void showAddTaskDialog() {
@@ -236,7 +512,6 @@ public class TaskPanel extends JPanel {
                     currentUser.getUsername()
                 );
                 taskService.addTask(task);
-                loadTasks();
                 JOptionPane.showMessageDialog(this,
                     "Task added successfully!",
                     "Success",
@@ -252,8 +527,9 @@ public class TaskPanel extends JPanel {
 
     private void showEditTaskDialog(int row) {
         int taskId = (int) tableModel.getValueAt(row, 0);
-        Task task = taskService.getTaskById(taskId);
-        if (task == null) return;
+        Task current = taskService.getTaskById(taskId);
+        if (current == null) return;
+        Task task = new Task(current);
 
         JTextField titleField = new JTextField(task.getTitle(), 20);
         JTextArea descField = new JTextArea(task.getDescription(), 3, 20);
@@ -307,7 +583,6 @@ public class TaskPanel extends JPanel {
                 task.setPriority(priority);
                 task.setDueDate(dueDateTime);
                 taskService.updateTask(task);
-                loadTasks();
             } catch (Exception e) {
                 JOptionPane.showMessageDialog(this,
                     "Invalid date format. Please use YYYY-MM-DD",
@@ -338,10 +613,11 @@ public class TaskPanel extends JPanel {
                 }
                 writer.println();
 
-                // Write data
-                for (int i = 0; i < tableModel.getRowCount(); i++) {
+                // Write the rows as shown, filtered and sorted
+                for (int i = 0; i < taskTable.getRowCount(); i++) {
+                    int row = taskTable.convertRowIndexToModel(i);
                     for (int j = 0; j < tableModel.getColumnCount(); j++) {
-                        writer.print(tableModel.getValueAt(i, j));
+                        writer.print(formatCell(tableModel.getValueAt(row, j)));
                         if (j < tableModel.getColumnCount() - 1) {
                             writer.print(",");
                         }
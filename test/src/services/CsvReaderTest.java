@@ -0,0 +1,91 @@
+package src.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Reads files back the way the services do: load a file, then save over it.
+ * Files larger than the reader's window are read a window at a time, so the
+ * records here also straddle window boundaries.
+ */
+public class CsvReaderTest {
+    private File file;
+
+    @Before
+    public void createFile() throws IOException {
+        file = File.createTempFile("csv-reader-test", ".csv");
+    }
+
+    @After
+    public void deleteFile() {
+        file.delete();
+        new File(file.getPath() + ".tmp").delete();
+    }
+
+    @Test
+    public void fileCanBeReplacedRightAfterItWasRead() throws IOException {
+        write("first", 3);
+        assertEquals(3, readAll("first"));
+
+        // On Windows this move fails while any view of the file is still mapped
+        write("second", 5);
+        assertEquals(5, readAll("second"));
+    }
+
+    @Test
+    public void recordsAcrossWindowsAreReadWhole() throws IOException {
+        StringBuilder huge = new StringBuilder();
+        while (huge.length() < 3 * 1024 * 1024) {
+            huge.append("line, with \"quotes\"\n");
+        }
+        int count = 200000;
+        try (CsvWriter writer = CsvWriter.replacing(file.getPath())) {
+            writer.writeLine("Id,Name,Value");
+            for (int i = 0; i < count; i++) {
+                writer.write(i).write(i == count / 2 ? huge.toString() : "name " + i).write(i * 0.5, 1).endRecord();
+            }
+            writer.commit();
+        }
+
+        try (CsvReader reader = CsvReader.open(file.getPath())) {
+            assertTrue(reader.next());
+            for (int i = 0; i < count; i++) {
+                assertTrue("record " + i, reader.next());
+                assertEquals(i, reader.getInt(0));
+                assertEquals(i == count / 2 ? huge.toString() : "name " + i, reader.getString(1));
+                assertEquals(i * 0.5, reader.getDouble(2), 0);
+            }
+            assertFalse(reader.next());
+        }
+    }
+
+    private void write(String name, int count) throws IOException {
+        try (CsvWriter writer = CsvWriter.replacing(file.getPath())) {
+            writer.writeLine("Id,Name");
+            for (int i = 0; i < count; i++) {
+                writer.write(i).write(name).endRecord();
+            }
+            writer.commit();
+        }
+    }
+
+    private int readAll(String name) throws IOException {
+        int count = 0;
+        try (CsvReader reader = CsvReader.open(file.getPath())) {
+            reader.next();
+            while (reader.next()) {
+                assertEquals(count, reader.getInt(0));
+                assertEquals(name, reader.getString(1));
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,216 @@
+package src.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import src.models.Product;
+import src.models.Task;
+import src.models.User;
+
+/**
+ * Writers keep replacing a few products, tasks and accounts with edited
+ * copies while readers walk the snapshots and look entities up. Every version
+ * written is internally consistent (all fields derive from one number), so a
+ * reader that ever sees fields from two versions has caught a torn read.
+ *
+ * The services keep their files under data/ in the working directory, so run
+ * this from an empty scratch directory.
+ */
+public class SnapshotIsolationStressTest {
+    private static final long RUN_NANOS = TimeUnit.SECONDS.toNanos(2);
+    private static final int WRITERS = 4;
+    private static final int READERS = 4;
+    private static final int ENTITIES = 8;
+    private static final String MARKER = ".stress-test";
+    private static final String CATEGORY = "Stress";
+    private static final String ASSIGNEE = "stress-assignee";
+    private static final LocalDateTime BASE_DUE = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+    @BeforeClass
+    public static void useScratchDirectory() throws IOException {
+        File data = new File("data");
+        assertFalse("Run from an empty working directory; the test writes to " + data.getAbsolutePath(),
+            data.exists() && !new File(data, MARKER).exists());
+        data.mkdirs();
+        new File(data, MARKER).createNewFile();
+    }
+
+    @Test
+    public void productReadersNeverSeeTornUpdates() throws Throwable {
+        ProductService service = ProductService.getInstance();
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < ENTITIES; i++) {
+            int id = 900000 + i;
+            service.delete(id);
+            assertTrue(service.add(product(id, 0)));
+            ids.add(id);
+        }
+
+        hammer(() -> {
+            Product copy = new Product(service.getById(pick(ids)));
+            int version = copy.getQuantity() + 1;
+            copy.setName("Stress " + version);
+            copy.setDescription("Version " + version);
+            copy.setPrice(version);
+            copy.setMinStock(version);
+            copy.setQuantity(version);
+            service.update(copy);
+        }, () -> {
+            for (Product product : service.getAll()) {
+                if (CATEGORY.equals(product.getCategory())) {
+                    assertConsistent(product);
+                }
+            }
+            assertConsistent(service.getById(pick(ids)));
+        });
+
+        // What the journal and compactor wrote must be consistent too
+        service.save();
+        service.load();
+        for (int id : ids) {
+            assertConsistent(service.getById(id));
+            service.delete(id);
+        }
+    }
+
+    @Test
+    public void taskReadersNeverSeeTornUpdates() throws Throwable {
+        TaskService service = TaskService.getInstance();
+        for (Task task : service.getTasksByAssignedTo(ASSIGNEE)) {
+            service.deleteTask(task.getId());
+        }
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < ENTITIES; i++) {
+            Task task = new Task("Stress 0", "Version 0", ASSIGNEE, "Pending", "Low", BASE_DUE, "stress-test");
+            service.addTask(task);
+            ids.add(task.getId());
+        }
+
+        hammer(() -> {
+            Task copy = new Task(service.getTaskById(pick(ids)));
+            int version = version(copy) + 1;
+            copy.setTitle("Stress " + version);
+            copy.setDescription("Version " + version);
+            copy.setDueDate(BASE_DUE.plusDays(version));
+            service.updateTask(copy);
+        }, () -> {
+            for (Task task : service.getAllTasks()) {
+                if (ASSIGNEE.equals(task.getAssignedTo())) {
+                    assertConsistent(task);
+                }
+            }
+            for (Task task : service.getTasksByAssignedTo(ASSIGNEE)) {
+                assertConsistent(task);
+            }
+        });
+
+        for (int id : ids) {
+            service.deleteTask(id);
+        }
+    }
+
+    @Test
+    public void userReadersNeverSeeTornUpdates() throws Throwable {
+        UserService service = UserService.getInstance();
+        List<String> usernames = new ArrayList<>();
+        for (int i = 0; i < ENTITIES; i++) {
+            String username = "stress-user-" + i;
+            service.deleteUser(username);
+            User user = new User(username, "secret", "Stress 0", username + "@example.com", CATEGORY, "Version 0", "0", false);
+            assertTrue(service.addUser(user));
+            usernames.add(username);
+        }
+
+        hammer(() -> {
+            User copy = new User(service.getUserByUsername(pick(usernames)));
+            int version = Integer.parseInt(copy.getPhoneNumber()) + 1;
+            copy.setFullName("Stress " + version);
+            copy.setPosition("Version " + version);
+            copy.setPhoneNumber(String.valueOf(version));
+            service.updateUser(copy);
+        }, () -> {
+            for (User user : service.getAllUsers()) {
+                if (CATEGORY.equals(user.getDepartment())) {
+                    assertConsistent(user);
+                }
+            }
+            assertConsistent(service.getUserByUsername(pick(usernames)));
+        });
+
+        for (String username : usernames) {
+            service.deleteUser(username);
+        }
+    }
+
+    private static Product product(int id, int version) {
+        return new Product(id, "Stress " + version, "Version " + version, CATEGORY, version, version, version);
+    }
+
+    private static int version(Task task) {
+        return Integer.parseInt(task.getTitle().substring("Stress ".length()));
+    }
+
+    private static void assertConsistent(Product product) {
+        assertNotNull(product);
+        int version = product.getQuantity();
+        assertEquals("Stress " + version, product.getName());
+        assertEquals("Version " + version, product.getDescription());
+        assertEquals(version, product.getPrice(), 0);
+        assertEquals(version, product.getMinStock());
+    }
+
+    private static void assertConsistent(Task task) {
+        int version = version(task);
+        assertEquals("Version " + version, task.getDescription());
+        assertEquals(BASE_DUE.plusDays(version), task.getDueDate());
+    }
+
+    private static void assertConsistent(User user) {
+        assertNotNull(user);
+        int version = Integer.parseInt(user.getPhoneNumber());
+        assertEquals("Stress " + version, user.getFullName());
+        assertEquals("Version " + version, user.getPosition());
+    }
+
+    private static <T> T pick(List<T> values) {
+        return values.get(ThreadLocalRandom.current().nextInt(values.size()));
+    }
+
+    // Runs the writers and readers side by side until time is up; the first failure fails the test
+    private static void hammer(Runnable write, Runnable read) throws Throwable {
+        ExecutorService pool = Executors.newFixedThreadPool(WRITERS + READERS);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        long deadline = System.nanoTime() + RUN_NANOS;
+        for (int i = 0; i < WRITERS + READERS; i++) {
+            Runnable work = i < WRITERS ? write : read;
+            pool.execute(() -> {
+                try {
+                    while (System.nanoTime() < deadline && failure.get() == null) {
+                        work.run();
+                    }
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue("Workers did not finish", pool.awaitTermination(60, TimeUnit.SECONDS));
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+}